@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import worker.analysis.NamedEntityRecognitionHandler;
+import worker.analysis.SentimentAnalysisHandler;
+
+import java.util.List;
+
+// One review per operation, cycling through the reviews of the given length
+@State(Scope.Thread)
+public class AnalysisBenchmark {
+    @Param({"short", "medium", "long"})
+    public String length;
+
+    private SentimentAnalysisHandler sentimentAnalysisHandler;
+    private SentimentAnalysisHandler allSentencesHandler;
+    private NamedEntityRecognitionHandler namedEntityRecognitionHandler;
+    private List<String> texts;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        sentimentAnalysisHandler = new SentimentAnalysisHandler();
+        allSentencesHandler = new SentimentAnalysisHandler(false);
+        namedEntityRecognitionHandler = new NamedEntityRecognitionHandler();
+        texts = Corpus.texts(length);
+    }
+
+    private String nextText() {
+        String text = texts.get(next);
+        next = (next + 1) % texts.size();
+        return text;
+    }
+
+    @Benchmark
+    public int findSentiment() {
+        // Nothing is cached, as for a review the worker has not seen before
+        sentimentAnalysisHandler.getSentimentCache().clear();
+        return sentimentAnalysisHandler.findSentiment(nextText());
+    }
+
+    @Benchmark
+    public int findSentimentAllSentences() {
+        // Every sentence is parsed, not only the longest one
+        allSentencesHandler.getSentimentCache().clear();
+        return allSentencesHandler.findSentiment(nextText());
+    }
+
+    @Benchmark
+    public int findSentimentCached() {
+        return sentimentAnalysisHandler.findSentiment(nextText());
+    }
+
+    @Benchmark
+    public List<String> findEntities() {
+        return namedEntityRecognitionHandler.findEntities(nextText());
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import aws.AWS;
+import manager.RequestParser;
+import manager.Review;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static aws.AWSConfig.*;
+
+// The bundled reviews.jsonl, in the input file format: one product per line with its reviews
+public class Corpus {
+    private static final String CORPUS = "reviews.jsonl";
+    public static final int SHORT_REVIEW = 100; // characters
+    public static final int MEDIUM_REVIEW = 400; // characters
+    private static boolean inProcessTransport = false;
+
+    public static List<Review> reviews() {
+        try (InputStream corpus = open()) {
+            List<Review> reviews = new ArrayList<>(RequestParser.parseRequest(corpus).values());
+            reviews.sort(Comparator.comparing(Review::getId));
+            return reviews;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Texts of the short, medium or long reviews
+    public static List<String> texts(String length) {
+        List<String> texts = new ArrayList<>();
+        for (Review review : reviews()) {
+            int textLength = review.getText().length();
+            String reviewLength = textLength < SHORT_REVIEW ? "short" : textLength < MEDIUM_REVIEW ? "medium" : "long";
+            if (reviewLength.equals(length)) {
+                texts.add(review.getText());
+            }
+        }
+        return texts;
+    }
+
+    // Texts of the bundled reviews followed by the worker's warm-up corpus, for the equivalence checks
+    public static List<String> allTexts() {
+        List<String> texts = new ArrayList<>();
+        for (Review review : reviews()) {
+            texts.add(review.getText());
+        }
+        try (BufferedReader warmupCorpus = new BufferedReader(new InputStreamReader(
+                Corpus.class.getClassLoader().getResourceAsStream(WARMUP_CORPUS), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = warmupCorpus.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    texts.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return texts;
+    }
+
+    // The corpus repeated copies times with unique review ids, as an input file
+    public static byte[] inputFile(int copies) {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader corpus = new BufferedReader(new InputStreamReader(open(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = corpus.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        StringBuilder inputFile = new StringBuilder();
+        for (int copy = 0; copy < copies; copy++) {
+            for (String line : lines) {
+                JSONObject product = new JSONObject(line);
+                JSONArray reviews = product.getJSONArray("reviews");
+                for (int i = 0; i < reviews.length(); i++) {
+                    JSONObject review = reviews.getJSONObject(i);
+                    review.put("id", review.getString("id") + "-" + copy);
+                }
+                inputFile.append(product).append('\n');
+            }
+        }
+        return inputFile.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Benchmarks that touch queues or storage run against the in-memory implementations
+    public static synchronized void useInProcessTransport() {
+        if (!inProcessTransport) {
+            AWS.useInProcessTransport();
+            inProcessTransport = true;
+        }
+    }
+
+    private static InputStream open() {
+        return Corpus.class.getClassLoader().getResourceAsStream(CORPUS);
+    }
+}
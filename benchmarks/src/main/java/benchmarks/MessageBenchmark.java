@@ -0,0 +1,164 @@
+package benchmarks;
+
+import manager.Review;
+import messages.ReviewResult;
+import messages.SummaryRecord;
+import messages.TaskReview;
+import messages.WorkerResponse;
+import messages.WorkerTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static aws.AWSConfig.*;
+
+// One task of MAX_REVIEWS_PER_TASK reviews and its response per operation, built and read the way
+// ManagerTask and Worker do it. The legacy* benchmarks keep the old "::"-joined format as the baseline.
+@State(Scope.Thread)
+public class MessageBenchmark {
+    private static final String LEGACY_DELIMITER = "::";
+    private static final String SHARD_KEY = "localAppId/localAppId-shard-0-0";
+    private static final String ENTITIES = "Amazon: ORGANIZATION, Seattle: LOCATION";
+
+    private final List<Review> reviews = new ArrayList<>();
+    private String inlineTask;
+    private String shardTask;
+    private String response;
+    private String legacyInlineTask;
+    private String legacyShardTask;
+    private String legacyResponse;
+
+    @Setup
+    public void setup() {
+        List<Review> corpus = Corpus.reviews();
+        for (int i = 0; i < MAX_REVIEWS_PER_TASK; i++) {
+            reviews.add(corpus.get(i % corpus.size()));
+        }
+        inlineTask = encodeInlineTask();
+        shardTask = encodeShardTask();
+        response = encodeResponse();
+        legacyInlineTask = legacyEncodeInlineTask();
+        legacyShardTask = legacyEncodeShardTask();
+        legacyResponse = legacyEncodeResponse();
+    }
+
+    @Benchmark
+    public String encodeInlineTask() {
+        List<TaskReview> taskReviews = new ArrayList<>();
+        for (Review review : reviews) {
+            taskReviews.add(TaskReview.inline(review.getId(), review.getRating(), review.getLink(), review.getText()));
+        }
+        return new WorkerTask("localAppId", "0", "42", ANALYZE_TASK, "", taskReviews).encode();
+    }
+
+    @Benchmark
+    public String encodeShardTask() {
+        List<TaskReview> taskReviews = new ArrayList<>();
+        long offset = 0;
+        for (Review review : reviews) {
+            int length = review.getText().length();
+            taskReviews.add(TaskReview.inShard(review.getId(), review.getRating(), review.getLink(), offset, length));
+            offset += length;
+        }
+        return new WorkerTask("localAppId", "0", "42", ANALYZE_SHARD_TASK, SHARD_KEY, taskReviews).encode();
+    }
+
+    @Benchmark
+    public WorkerTask decodeInlineTask() {
+        return WorkerTask.decode(inlineTask);
+    }
+
+    @Benchmark
+    public WorkerTask decodeShardTask() {
+        return WorkerTask.decode(shardTask);
+    }
+
+    @Benchmark
+    public String encodeResponse() {
+        List<ReviewResult> results = new ArrayList<>();
+        for (Review review : reviews) {
+            results.add(new ReviewResult(review.getId(), review.getRating(), review.getLink(), review.getRating() - 1, ENTITIES));
+        }
+        return new WorkerResponse("localAppId", "0", "42", ANALYZE_TASK, results).encode();
+    }
+
+    // Response to summary records, as the manager aggregates them
+    @Benchmark
+    public void decodeResponse(Blackhole blackhole) {
+        WorkerResponse workerResponse = WorkerResponse.decode(response);
+        blackhole.consume(workerResponse.getTaskId());
+        for (ReviewResult result : workerResponse.getResults()) {
+            blackhole.consume(new SummaryRecord(result.getReviewId(), result.getRating(), result.getLink(),
+                    result.getSentiment(), result.getEntities()).encode());
+        }
+    }
+
+    @Benchmark
+    public String legacyEncodeInlineTask() {
+        List<String> taskReviews = new ArrayList<>();
+        for (Review review : reviews) {
+            taskReviews.add(String.join(LEGACY_DELIMITER, review.getId(), review.getText()));
+        }
+        return String.join(LEGACY_DELIMITER, "localAppId", "0", "42", ANALYZE_TASK,
+                String.join(LEGACY_DELIMITER, taskReviews));
+    }
+
+    @Benchmark
+    public String legacyEncodeShardTask() {
+        List<String> taskReviews = new ArrayList<>();
+        long offset = 0;
+        for (Review review : reviews) {
+            int length = review.getText().length();
+            taskReviews.add(String.join(LEGACY_DELIMITER, review.getId(), String.valueOf(offset), String.valueOf(length)));
+            offset += length;
+        }
+        return String.join(LEGACY_DELIMITER, "localAppId", "0", "42", ANALYZE_SHARD_TASK,
+                SHARD_KEY, String.join(LEGACY_DELIMITER, taskReviews));
+    }
+
+    @Benchmark
+    public void legacyDecodeInlineTask(Blackhole blackhole) {
+        String[] taskContent = legacyInlineTask.split(LEGACY_DELIMITER, -1);
+        blackhole.consume(taskContent[2]);
+        for (int i = 4; i + 1 < taskContent.length; i += 2) {
+            blackhole.consume(taskContent[i]);
+            blackhole.consume(taskContent[i + 1]);
+        }
+    }
+
+    @Benchmark
+    public void legacyDecodeShardTask(Blackhole blackhole) {
+        String[] taskContent = legacyShardTask.split(LEGACY_DELIMITER, -1);
+        blackhole.consume(taskContent[4]);
+        for (int i = 5; i + 2 < taskContent.length; i += 3) {
+            blackhole.consume(taskContent[i]);
+            blackhole.consume(Long.parseLong(taskContent[i + 1]));
+            blackhole.consume(Integer.parseInt(taskContent[i + 2]));
+        }
+    }
+
+    @Benchmark
+    public String legacyEncodeResponse() {
+        StringBuilder response = new StringBuilder(String.join(LEGACY_DELIMITER, "localAppId", "0", "42", ANALYZE_TASK));
+        for (Review review : reviews) {
+            response.append(LEGACY_DELIMITER).append(String.join(LEGACY_DELIMITER, review.getId(),
+                    String.valueOf(review.getRating() - 1), ENTITIES));
+        }
+        return response.toString();
+    }
+
+    @Benchmark
+    public void legacyDecodeResponse(Blackhole blackhole) {
+        String[] responseContent = legacyResponse.split(LEGACY_DELIMITER, -1);
+        blackhole.consume(responseContent[2]);
+        for (int i = 4; i + 2 < responseContent.length; i += 3) {
+            blackhole.consume(String.join(LEGACY_DELIMITER,
+                    responseContent[i], "5", "https://www.amazon.com/", responseContent[i + 1], responseContent[i + 2]));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import manager.Review;
+import worker.analysis.NamedEntityRecognitionHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-review ner latency of the full and lean profiles, one review per operation cycling through the corpus.
+// Load time and heap footprint are measured in fresh JVMs by NerProfileCheck.
+@State(Scope.Thread)
+public class NerProfileBenchmark {
+    @Param({"full", "lean"})
+    public String profile;
+
+    private NamedEntityRecognitionHandler namedEntityRecognitionHandler;
+    private final List<String> texts = new ArrayList<>();
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        namedEntityRecognitionHandler = new NamedEntityRecognitionHandler(profile);
+        for (Review review : Corpus.reviews()) {
+            texts.add(review.getText());
+        }
+    }
+
+    @Benchmark
+    public List<String> findEntities() {
+        String text = texts.get(next);
+        next = (next + 1) % texts.size();
+        return namedEntityRecognitionHandler.findEntities(text);
+    }
+}
@@ -0,0 +1,153 @@
+package benchmarks;
+
+import edu.stanford.nlp.ling.CoreAnnotations.CoarseNamedEntityTagAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.NamedEntityTagAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.CoreMap;
+import worker.analysis.NamedEntityRecognitionHandler;
+import worker.analysis.ReviewAnalysis;
+import worker.analysis.ReviewAnalysisHandler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static aws.AWSConfig.*;
+
+// Run by mvn verify, or java -cp target/benchmarks.jar benchmarks.NerProfileCheck
+// Fails on any review of the bundled and warm-up corpora whose sentiment or entities differ between the full and
+// lean ner profiles, or whose entities differ from the fine-grained tags the full profile used to report other
+// than by a retagged location, then prints the load time and retained heap of both profiles, each loaded in a fresh JVM
+public class NerProfileCheck {
+    private static final String FOOTPRINT = "footprint";
+    private static final String LOCATION = "LOCATION";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals(FOOTPRINT)) {
+            printFootprint(args[1]);
+            return;
+        }
+
+        List<String> texts = Corpus.allTexts();
+        int mismatches = checkProfiles(texts) + checkAgainstFineGrainedTags(texts);
+
+        for (String profile : new String[]{NER_PROFILE_FULL, NER_PROFILE_LEAN}) {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process footprint = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "-Dlog4j.configurationFile=log4j2-benchmarks.properties", NerProfileCheck.class.getName(), FOOTPRINT, profile)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(footprint.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    System.out.println(line);
+                }
+            }
+            footprint.waitFor();
+        }
+
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Both profiles as the workers run them
+    private static int checkProfiles(List<String> texts) {
+        ReviewAnalysisHandler full = new ReviewAnalysisHandler(NER_PROFILE_FULL);
+        ReviewAnalysisHandler lean = new ReviewAnalysisHandler(NER_PROFILE_LEAN);
+
+        int mismatches = 0;
+        for (String text : texts) {
+            ReviewAnalysis expected = full.analyze(text);
+            ReviewAnalysis analysis = lean.analyze(text);
+            if (analysis.getSentiment() != expected.getSentiment() || !analysis.getEntities().equals(expected.getEntities())) {
+                mismatches++;
+                System.out.println("Mismatch: expected " + expected.getSentiment() + " " + expected.getEntities() +
+                        " got " + analysis.getSentiment() + " " + analysis.getEntities() + " for: " + text);
+            }
+        }
+        System.out.println(texts.size() + " reviews, " + mismatches + " mismatches between the full and lean profiles");
+        return mismatches;
+    }
+
+    // Before getEntities read the coarse tag, the full profile reported the final tag, which the fine-grained rules
+    // turn from LOCATION into CITY, COUNTRY... Token by token, the only differences allowed from that output, for
+    // the full profile as it is now and for the lean profile, are such locations reported as LOCATION.
+    private static int checkAgainstFineGrainedTags(List<String> texts) {
+        StanfordCoreNLP full = new StanfordCoreNLP(NamedEntityRecognitionHandler.nerProperties(NER_PROFILE_FULL));
+        StanfordCoreNLP lean = new StanfordCoreNLP(NamedEntityRecognitionHandler.nerProperties(NER_PROFILE_LEAN));
+
+        int mismatches = 0;
+        int retaggedLocations = 0;
+        for (String text : texts) {
+            Annotation fullDocument = new Annotation(text);
+            full.annotate(fullDocument);
+            Annotation leanDocument = new Annotation(text);
+            lean.annotate(leanDocument);
+
+            List<String> expected = new ArrayList<>();
+            List<CoreLabel> fullTokens = tokens(fullDocument);
+            List<CoreLabel> leanTokens = tokens(leanDocument);
+            for (int i = 0; i < fullTokens.size(); i++) {
+                CoreLabel token = fullTokens.get(i);
+                String fineTag = token.get(NamedEntityTagAnnotation.class);
+                String coarseTag = token.get(CoarseNamedEntityTagAnnotation.class);
+                if (NamedEntityRecognitionHandler.isReported(fineTag)) {
+                    expected.add(token.word() + ": " + fineTag);
+                } else if (LOCATION.equals(coarseTag)) {
+                    expected.add(token.word() + ": " + LOCATION);
+                    retaggedLocations++;
+                }
+                String leanTag = leanTokens.get(i).get(NamedEntityTagAnnotation.class);
+                boolean leanReported = NamedEntityRecognitionHandler.isReported(leanTag);
+                if (NamedEntityRecognitionHandler.isReported(fineTag) ? !fineTag.equals(leanTag) :
+                        leanReported && !(LOCATION.equals(coarseTag) && LOCATION.equals(leanTag))) {
+                    mismatches++;
+                    System.out.println("Mismatch: fine-grained tag " + fineTag + " lean tag " + leanTag +
+                            " for " + token.word() + " in: " + text);
+                }
+            }
+            List<String> entities = NamedEntityRecognitionHandler.getEntities(fullDocument);
+            if (!entities.equals(expected)) {
+                mismatches++;
+                System.out.println("Mismatch: expected " + expected + " got " + entities + " for: " + text);
+            }
+        }
+        System.out.println(texts.size() + " reviews, " + mismatches + " mismatches with the fine-grained tags, " +
+                retaggedLocations + " retagged locations");
+        return mismatches;
+    }
+
+    private static List<CoreLabel> tokens(Annotation document) {
+        List<CoreLabel> tokens = new ArrayList<>();
+        for (CoreMap sentence : document.get(SentencesAnnotation.class)) {
+            tokens.addAll(sentence.get(TokensAnnotation.class));
+        }
+        return tokens;
+    }
+
+    private static void printFootprint(String profile) {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        NamedEntityRecognitionHandler handler = new NamedEntityRecognitionHandler(profile);
+        long loadTime = System.nanoTime() - start;
+        long retained = usedHeap() - before;
+        handler.findEntities("Loaded.");
+        System.out.println(profile + " profile: loaded in " + loadTime / 1_000_000 + " ms, retained heap " +
+                retained / (1024 * 1024) + " MB");
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,40 @@
+package benchmarks;
+
+import manager.RequestParser;
+import manager.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// A whole input file per operation
+@State(Scope.Thread)
+public class RequestParserBenchmark {
+    @Param({"10", "100"})
+    public int copies; // of the 80 reviews corpus
+
+    private byte[] inputFile;
+
+    @Setup
+    public void setup() {
+        inputFile = Corpus.inputFile(copies);
+    }
+
+    @Benchmark
+    public Map<String, Review> parseRequest() throws Exception {
+        return RequestParser.parseRequest(new ByteArrayInputStream(inputFile));
+    }
+
+    @Benchmark
+    public int parseRequestStreaming() throws Exception {
+        BlockingQueue<Review> reviews = new LinkedBlockingQueue<>();
+        RequestParser.parseRequest(new ByteArrayInputStream(inputFile), reviews);
+        return reviews.size();
+    }
+}
@@ -0,0 +1,97 @@
+package benchmarks;
+
+import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
+import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import worker.analysis.ReviewAnalysisHandler;
+import worker.analysis.SentimentAnalysisHandler;
+
+import java.util.List;
+import java.util.Properties;
+
+import static aws.AWSConfig.*;
+
+// Run by mvn verify, or java -cp target/benchmarks.jar benchmarks.SentimentEquivalenceCheck
+// Runs the bundled corpus and the warm-up corpus through both sentiment modes and fails on any review whose
+// sentiment differs between parsing every sentence and parsing only the longest one. Also fails on any review
+// whose worker sentiment, found on the document the ner pipeline annotated, differs from the one of the
+// original standalone sentiment pipeline.
+public class SentimentEquivalenceCheck {
+    public static void main(String[] args) {
+        List<String> texts = Corpus.allTexts();
+        int mismatches = checkLongestSentenceOnly(texts) + checkAgainstStandalonePipeline(texts);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int checkLongestSentenceOnly(List<String> texts) {
+        SentimentAnalysisHandler allSentences = new SentimentAnalysisHandler(false);
+        SentimentAnalysisHandler longestSentenceOnly = new SentimentAnalysisHandler(true);
+        // Loads the models before timing
+        allSentences.findSentiment(texts.get(0));
+        longestSentenceOnly.findSentiment(texts.get(0));
+        allSentences.getSentimentCache().clear();
+        longestSentenceOnly.getSentimentCache().clear();
+
+        int[] expected = new int[texts.size()];
+        long start = System.nanoTime();
+        for (int i = 0; i < texts.size(); i++) {
+            expected[i] = allSentences.findSentiment(texts.get(i));
+        }
+        long allSentencesTime = System.nanoTime() - start;
+
+        int mismatches = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < texts.size(); i++) {
+            int sentiment = longestSentenceOnly.findSentiment(texts.get(i));
+            if (sentiment != expected[i]) {
+                mismatches++;
+                System.out.println("Mismatch: expected " + expected[i] + " got " + sentiment + " for: " + texts.get(i));
+            }
+        }
+        long longestSentenceOnlyTime = System.nanoTime() - start;
+
+        System.out.println(texts.size() + " reviews, " + mismatches + " mismatches between all sentences and longest sentence only");
+        System.out.println("All sentences: " + allSentencesTime / 1_000_000 + " ms, longest sentence only: " +
+                longestSentenceOnlyTime / 1_000_000 + " ms");
+        return mismatches;
+    }
+
+    // Without the length cap, which the standalone pipeline did not have
+    private static int checkAgainstStandalonePipeline(List<String> texts) {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize, ssplit, parse, sentiment");
+        StanfordCoreNLP standalonePipeline = new StanfordCoreNLP(props);
+        ReviewAnalysisHandler worker = new ReviewAnalysisHandler(NER_PROFILE, SENTIMENT_PROFILE_PCFG, 0);
+
+        int mismatches = 0;
+        for (String text : texts) {
+            int expected = standaloneSentiment(standalonePipeline, text);
+            int sentiment = worker.analyze(text).getSentiment();
+            if (sentiment != expected) {
+                mismatches++;
+                System.out.println("Mismatch: standalone " + expected + " worker " + sentiment + " for: " + text);
+            }
+        }
+        System.out.println(texts.size() + " reviews, " + mismatches + " mismatches between the worker and the standalone pipeline");
+        return mismatches;
+    }
+
+    // The sentiment of the longest sentence, as the sentiment handler found it before it shared the ner document
+    private static int standaloneSentiment(StanfordCoreNLP pipeline, String text) {
+        int mainSentiment = 0;
+        int longest = 0;
+        for (CoreMap sentence : pipeline.process(text).get(SentencesAnnotation.class)) {
+            int sentiment = RNNCoreAnnotations.getPredictedClass(sentence.get(SentimentCoreAnnotations.SentimentAnnotatedTree.class));
+            String partText = sentence.toString();
+            if (partText.length() > longest) {
+                mainSentiment = sentiment;
+                longest = partText.length();
+            }
+        }
+        return mainSentiment;
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import worker.analysis.SentimentAnalysisHandler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static aws.AWSConfig.*;
+
+// mvn package -Pshift-reduce, then java -cp target/benchmarks.jar benchmarks.SentimentProfileReport
+// Accuracy and throughput of the sentiment profiles on labeled-reviews.tsv, 250 short product reviews labeled
+// by hand on the scale of the sentiment model, 50 for each of very negative (0) to very positive (4). Polarity
+// only compares negative, neutral and positive, agreement is the share of reviews with the same sentiment as
+// the pcfg profile, the current default.
+public class SentimentProfileReport {
+    private static final String LABELED_SAMPLE = "labeled-reviews.tsv"; // sentiment, tab, text, after a header line
+
+    public static void main(String[] args) {
+        List<String> texts = new ArrayList<>();
+        List<Integer> labels = new ArrayList<>();
+        readLabeledSample(texts, labels);
+
+        int[] baseline = null;
+        for (String profile : new String[]{SENTIMENT_PROFILE_PCFG, SENTIMENT_PROFILE_SHIFT_REDUCE}) {
+            SentimentAnalysisHandler handler = new SentimentAnalysisHandler(profile);
+            // The first pass warms up the JIT, the timed one parses again instead of hitting the cache
+            findSentiments(handler, texts);
+            handler.getSentimentCache().clear();
+            long skippedSentences = handler.getSkippedSentences();
+            long start = System.nanoTime();
+            int[] sentiments = findSentiments(handler, texts);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (baseline == null) {
+                baseline = sentiments;
+            }
+
+            int exact = 0, polarity = 0, agreement = 0;
+            for (int i = 0; i < texts.size(); i++) {
+                int label = labels.get(i);
+                if (sentiments[i] == label) {
+                    exact++;
+                }
+                if (polarity(sentiments[i]) == polarity(label)) {
+                    polarity++;
+                }
+                if (sentiments[i] == baseline[i]) {
+                    agreement++;
+                }
+            }
+            System.out.println(String.format("%-12s accuracy %5.1f%%, polarity accuracy %5.1f%%, agreement %5.1f%%, " +
+                            "%6.2f reviews/s, %d sentences over the length cap", profile,
+                    100.0 * exact / texts.size(), 100.0 * polarity / texts.size(), 100.0 * agreement / texts.size(),
+                    texts.size() / seconds, handler.getSkippedSentences() - skippedSentences));
+        }
+    }
+
+    private static void readLabeledSample(List<String> texts, List<Integer> labels) {
+        try (BufferedReader sample = new BufferedReader(new InputStreamReader(
+                SentimentProfileReport.class.getClassLoader().getResourceAsStream(LABELED_SAMPLE), StandardCharsets.UTF_8))) {
+            sample.readLine();
+            String line;
+            while ((line = sample.readLine()) != null) {
+                String[] fields = line.split("\t", 2);
+                labels.add(Integer.parseInt(fields[0]));
+                texts.add(fields[1]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int[] findSentiments(SentimentAnalysisHandler handler, List<String> texts) {
+        int[] sentiments = new int[texts.size()];
+        for (int i = 0; i < texts.size(); i++) {
+            sentiments[i] = handler.findSentiment(texts.get(i));
+        }
+        return sentiments;
+    }
+
+    private static int polarity(int sentiment) {
+        return Integer.compare(sentiment, NEUTRAL_SENTIMENT);
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import aws.AWS;
+import localapp.LocalAppTask;
+import manager.Review;
+import manager.SummaryWriter;
+import messages.SummaryRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static aws.AWSConfig.*;
+
+// A whole summary per operation: aggregated by the manager into the blob store, then rendered to HTML by the local app.
+// Runs against the in-memory blob store, so only the aggregation and rendering are measured.
+@State(Scope.Thread)
+public class SummaryBenchmark {
+    private static final String LOCAL_APP_ID = "benchmark";
+    private static final String SUMMARY_FILE_NAME = "benchmark-summary-0";
+
+    @Param({"1000", "100000"})
+    public int records;
+
+    private AWS aws;
+    private ExecutorService executor;
+    private final List<SummaryRecord> summaryRecords = new ArrayList<>();
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Corpus.useInProcessTransport();
+        aws = AWS.getInstance();
+        aws.s3.createS3BucketIfNotExists(BUCKET_NAME);
+        executor = Executors.newFixedThreadPool(TASK_SENDER_THREADS);
+
+        List<Review> reviews = Corpus.reviews();
+        for (int i = 0; i < records; i++) {
+            Review review = reviews.get(i % reviews.size());
+            summaryRecords.add(new SummaryRecord(review.getId() + DEFAULT_DELIMITER + i,
+                    review.getRating(), review.getLink(), i % 5,
+                    i % 3 == 0 ? "" : "Amazon: ORGANIZATION, Seattle: LOCATION"));
+        }
+        outputFile = File.createTempFile("summary", ".html");
+        // The summary rendered by renderSummary
+        aggregateSummary();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        outputFile.delete();
+    }
+
+    @Benchmark
+    public void aggregateSummary() throws Exception {
+        SummaryWriter summaryWriter = new SummaryWriter(BUCKET_NAME,
+                LOCAL_APP_ID + BUCKET_KEY_DELIMITER + SUMMARY_FILE_NAME, executor);
+        for (SummaryRecord record : summaryRecords) {
+            summaryWriter.append(record);
+        }
+        summaryWriter.close();
+    }
+
+    @Benchmark
+    public void renderSummary() {
+        new LocalAppTask(LOCAL_APP_ID, outputFile.getPath(), SUMMARY_FILE_NAME).run();
+    }
+}
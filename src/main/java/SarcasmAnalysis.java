@@ -1,13 +1,17 @@
+import aws.AWS;
 import localapp.LocalApp;
+import localapp.Status;
 import manager.Manager;
 import worker.Worker;
 
 import java.util.Arrays;
 
+import static aws.AWSConfig.TERMINATE_TASK;
+
 public class SarcasmAnalysis {
     public static void main(String[] args) {
         if (args.length == 0) {
-            System.out.println("Usage: sarcasm-analysis [manager|worker] [args...]");
+            System.out.println("Usage: sarcasm-analysis [manager|worker|local|status] [args...]");
             return;
         }
 
@@ -20,7 +24,22 @@ public class SarcasmAnalysis {
                 break;
             case "worker":
                 System.setProperty("logFileName", "worker");
-                Worker.main(emptyArgs);
+                Worker.main(Arrays.copyOfRange(args, 1, args.length)); // [processing_threads]
+                break;
+            case "local":
+                // Manager and workers run in this JVM, the manager terminates once the files are done
+                System.setProperty("logFileName", "local");
+                AWS.useInProcessTransport();
+                String[] localAppArgs = Arrays.copyOfRange(args, 1, args.length);
+                if (localAppArgs.length > 0 && !localAppArgs[localAppArgs.length - 1].equals(TERMINATE_TASK)) {
+                    localAppArgs = Arrays.copyOf(localAppArgs, localAppArgs.length + 1);
+                    localAppArgs[localAppArgs.length - 1] = TERMINATE_TASK;
+                }
+                LocalApp.main(localAppArgs);
+                break;
+            case "status":
+                System.setProperty("logFileName", "status");
+                Status.main(emptyArgs);
                 break;
             default: // First input file path
                 System.setProperty("logFileName", "localapp");
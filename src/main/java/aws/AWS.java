@@ -1,11 +1,39 @@
 package aws;
 
+import transport.BlobStore;
+import transport.ComputeService;
+import transport.QueueService;
+import transport.local.InMemoryBlobStore;
+import transport.local.InMemoryQueueService;
+import transport.local.LocalComputeService;
+
 public class AWS {
-    private static final AWS instance = new AWS();
-    public static AWS getInstance() {
+    private static AWS instance;
+    private static boolean inProcess = false;
+    public static synchronized AWS getInstance() {
+        if (instance == null) {
+            instance = inProcess ?
+                    new AWS(new LocalComputeService(), new InMemoryBlobStore(), new InMemoryQueueService()) :
+                    new AWS(new EC2Handler(), new S3Handler(), new SQSHandler());
+        }
         return instance;
     }
-    public final EC2Handler ec2 = new EC2Handler();
-    public final S3Handler s3 = new S3Handler();
-    public final SQSHandler sqs = new SQSHandler();
-}
\ No newline at end of file
+
+    // Manager, workers and local app run as threads of this JVM, must be called before the first getInstance
+    public static synchronized void useInProcessTransport() {
+        if (instance != null) {
+            throw new IllegalStateException("Transport already initialized");
+        }
+        inProcess = true;
+    }
+
+    public final ComputeService ec2;
+    public final BlobStore s3;
+    public final QueueService sqs;
+
+    private AWS(ComputeService ec2, BlobStore s3, QueueService sqs) {
+        this.ec2 = ec2;
+        this.s3 = s3;
+        this.sqs = sqs;
+    }
+}
@@ -11,17 +11,24 @@ public class AWSConfig {
     public static final String TERMINATE_TASK = "terminate";
     public static final String RESPONSE_STATUS_DONE = "done";
     public static final String RESPONSE_STATUS_ERROR = "error";
-    public static final String SENTIMENT_ANALYSIS_TASK = "sentimentAnalysis";
-    public static final String ENTITY_RECOGNITION_TASK = "entityRecognition";
+    public static final String ANALYZE_SHARD_TASK = "analyzeShard";
     public static final String SUMMARY_FILE_INDICATOR = "summary";
+    public static final String SHARD_FILE_INDICATOR = "shard";
     public static final String DEFAULT_DELIMITER = "-";
-    public static final String MESSAGE_DELIMITER = "::";
-    public static final String SUMMARY_DELIMITER = "##";
 
     // S3
     public static final String BUCKET_NAME = "sarcasm-analysis-bucket";
     public static final String JAR_BUCKET_NAME = "sarcasm-analysis-jar-bucket";
     public static final String BUCKET_KEY_DELIMITER = "/";
+    public static final int S3_PART_SIZE = 8 * 1024 * 1024; // bytes, at least 5 MB for multipart uploads
+    public static final long S3_MULTIPART_THRESHOLD = 16 * 1024 * 1024; // bytes, larger objects are transferred in parallel parts
+    public static final int S3_TRANSFER_THREADS = 8;
+    public static final int MAX_PENDING_SUMMARY_PARTS = 2; // per job, parts being uploaded while the next one fills
+    public static final boolean USE_REVIEW_SHARDS = true; // review texts are stored in S3 shards, tasks carry offsets
+    public static final boolean STREAM_REQUESTS = true; // input files are parsed while tasks are being sent
+    public static final int INPUT_BUFFER_SIZE = 1000; // parsed reviews waiting to be packed
+    public static final int REVIEW_SHARD_SIZE = 8 * 1024 * 1024; // bytes
+    public static final int SHARD_CACHE_SIZE = 16; // shards kept on each worker's disk
 
     // EC2
     public static final String AMI_ID = "ami-00e95a9222311e8ed";
@@ -44,15 +51,64 @@ public class AWSConfig {
     public static final String MANAGER_NAME_TAG_VALUE = "sarcasm-analysis-manager";
     public static final String WORKER_NAME_TAG_VALUE = "sarcasm-analysis-worker";
     public static final int MAXIMUM_WORKER_INSTANCES = 8;
+    public static final String READY_TAG = "Ready"; // set by a worker once warmed up, value is its startup time in milliseconds
+    public static final int WORKER_READY_TIMEOUT = 600; // seconds, workers not ready by then are replaced
+    public static final int MAX_INSTANCES_PER_TERMINATE = 1000; // instance ids per TerminateInstances call
+    public static final String INSTANCE_METADATA_ENDPOINT = "http://169.254.169.254/latest/"; // IMDSv2
+    public static final int INSTANCE_METADATA_TOKEN_TTL = 60; // seconds
+    public static final int INSTANCE_METADATA_TIMEOUT = 2000; // milliseconds per metadata request
+    public static final int AUTOSCALER_INTERVAL = 5; // seconds between queue depth checks
+    public static final int FLEET_REFRESH_INTERVAL = 60; // seconds, cached worker ids are reconciled with EC2
+    public static final int WORKER_IDLE_TTL = 120; // seconds the fleet must stay oversized before workers are terminated
 
     // SQS
     public static final String LOCAL_TO_MANAGER_QUEUE_NAME = "localToManagerQueue";
-    public static final String MANAGER_TO_LOCAL_QUEUE_NAME = "managerToLocalQueue";
+    public static final String MANAGER_TO_LOCAL_QUEUE_NAME = "managerToLocalQueue"; // <name>-<local_app_id> per local app
     public static final String MANAGER_TO_WORKER_QUEUE_NAME = "managerToWorkerQueue";
     public static final String WORKER_TO_MANAGER_QUEUE_NAME = "workerToManagerQueue";
     public static final int LONG_POLLING_TIME = 20;
     public static final int VISIBILITY_TIMEOUT = 60;
     public static final int RETURN_TASK_TIME = 1;
+    public static final int MAX_BATCH_ENTRIES = 10;
+    public static final int MAX_BATCH_PAYLOAD_SIZE = 256 * 1024; // bytes
+    public static final int BATCH_SEND_RETRIES = 3;
+    public static final int BATCH_RETRY_DELAY = 200; // milliseconds
+    public static final int TASK_SENDER_THREADS = 8;
+    public static final int MAX_PENDING_BATCHES = 2 * TASK_SENDER_THREADS; // per job
+    public static final int RESPONSE_POLL_INTERVAL = 100; // milliseconds, responses are summarized while a batch waits to be sent
+    public static final int MAX_TASKS_IN_FLIGHT = 64; // sent and not answered, across all jobs, keeps the managerToWorker queue short
+    public static final int SCHEDULER_QUANTUM = MAX_BATCH_ENTRIES; // tasks a priority 1 job may send per scheduling round
+    public static final int MAX_ACTIVE_JOBS = 16; // jobs sending their tasks, further jobs wait, jobs waiting for responses do not count
+    public static final int MAX_DEADLINE_BATCHES_IN_A_ROW = 4; // sent ahead of the round-robin, so jobs with a deadline cannot starve the others
+    public static final int WAITING_JOB_HEAD_START = 60; // seconds a waiting job is moved ahead for a deadline and per priority above 1
+    public static final int DEFAULT_JOB_PRIORITY = 1;
+    public static final int ACK_FLUSH_INTERVAL = 100; // milliseconds
+    public static final int MAX_PENDING_ACKS = 100;
+    public static final int RESPONSE_DISPATCHER_THREADS = 2;
+    public static final int WORKER_TASKS_PER_THREAD = 2;
+    public static final int MAX_REVIEWS_PER_TASK = 50;
+    public static final int MAX_TASK_SIZE = 250 * 1024; // bytes, leaves room for the task header
 
+    // Analysis
+    public static final String WARMUP_CORPUS = "warmup-reviews.txt"; // bundled, one review per line
+    public static final int WARMUP_ROUNDS = 3;
+    public static final int SENTIMENT_CACHE_SIZE = 4 * 1024 * 1024; // characters of cached sentences
+    public static final boolean SENTIMENT_LONGEST_SENTENCE_ONLY = true; // only the sentence that decides the sentiment is parsed
+    public static final String NER_PROFILE_FULL = "full"; // default CoreNLP ner stage
+    public static final String NER_PROFILE_LEAN = "lean"; // only the CRF model for PERSON, ORGANIZATION and LOCATION
+    public static final String NER_PROFILE = NER_PROFILE_FULL; // overridden on a worker with -DnerProfile
+    public static final String SENTIMENT_PROFILE_PCFG = "pcfg"; // englishPCFG, the CoreNLP default parser
+    public static final String SENTIMENT_PROFILE_SHIFT_REDUCE = "shift-reduce"; // englishSR, needs the jar built with -Pshift-reduce
+    public static final String SENTIMENT_PROFILE = SENTIMENT_PROFILE_PCFG; // overridden on a worker with -DsentimentProfile
+    public static final int SENTIMENT_MAX_SENTENCE_LENGTH = 80; // tokens, longer sentences are not parsed, overridden on a worker with -DmaxSentenceLength
+    public static final int NEUTRAL_SENTIMENT = 2;
+    public static final int TASK_CPU_BUDGET = 60; // seconds of analysis per task, later reviews of the task get a neutral sentiment
 
+    // Metrics
+    public static final int METRICS_PORT = 9404; // http://<host>:9404/metrics in Prometheus text format
+    public static final String METRICS_JMX_NAME = "sarcasm-analysis:type=Metrics";
+    public static final String STATUS_KEY = "status/manager.json"; // job progress published by the manager
+    public static final int STATUS_PUBLISH_INTERVAL = 10; // seconds
+    public static final String SQS_LATENCY_METRIC = "sqs_request_seconds";
+    public static final String SQS_LATENCY_HELP = "Latency of SQS requests by operation";
 }
@@ -1,48 +1,64 @@
 package aws;
 
-import aws.AWSConfig;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.Tag;
 import software.amazon.awssdk.services.ec2.model.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import transport.ComputeService;
+
 import static aws.AWSConfig.*;
 
-public class EC2Handler {
+public class EC2Handler implements ComputeService {
     private final Ec2Client ec2 = Ec2Client.builder().region(REGION1).build();
+    private final ExecutorService launchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ec2-launcher");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final Logger logger = LogManager.getLogger(EC2Handler.class);
 
-    public void createEC2Instance(String script, String typeTagValue, String nameTagValue, InstanceType instanceType) {
-        Ec2Client ec2 = Ec2Client.builder().region(REGION1).build();
+    public String createEC2Instance(String script, String typeTagValue, String nameTagValue, InstanceType instanceType) {
+        return createEC2Instances(script, typeTagValue, nameTagValue, instanceType, 1).get(0);
+    }
+
+    // One request for all instances, tagged at launch. EC2 may start fewer than count when capacity is short.
+    public List<String> createEC2Instances(String script, String typeTagValue, String nameTagValue,
+                                           InstanceType instanceType, int count) {
         RunInstancesRequest runRequest = RunInstancesRequest.builder()
                 .instanceType(instanceType)
                 .imageId(AMI_ID)
-                .maxCount(1)
+                .maxCount(count)
                 .minCount(1)
                 .keyName(KEY_NAME)
                 .iamInstanceProfile(IamInstanceProfileSpecification.builder().name(IAM_PROFILE).build())
                 .userData(Base64.getEncoder().encodeToString((script).getBytes()))
+                .tagSpecifications(createTags(typeTagValue, nameTagValue))
                 .build();
 
-        RunInstancesResponse response = ec2.runInstances(runRequest);
-
-        String instanceId = response.instances().get(0).instanceId();
-
-        CreateTagsRequest tagRequest = createTags(typeTagValue, nameTagValue, instanceId);
-
-        try {
-            ec2.createTags(tagRequest);
-            logger.info("Successfully started EC2 instance " + instanceId + " based on AMI " + AMI_ID);
-
-        } catch (Ec2Exception e) {
-            logger.error(e.getMessage());
-            System.exit(1);
+        List<String> instanceIds = new ArrayList<>();
+        for (Instance instance : ec2.runInstances(runRequest).instances()) {
+            instanceIds.add(instance.instanceId());
         }
+        logger.info("Successfully started EC2 instances " + instanceIds + " based on AMI " + AMI_ID);
+        return instanceIds;
     }
 
-    private CreateTagsRequest createTags(String typeTagValue, String nameTagValue, String instanceId) {
+    private TagSpecification createTags(String typeTagValue, String nameTagValue) {
         Tag typeTag = Tag.builder()
                 .key(TYPE_TAG)
                 .value(typeTagValue)
@@ -53,44 +69,56 @@ public class EC2Handler {
                 .value(nameTagValue)
                 .build();
 
-        return CreateTagsRequest.builder()
-                .resources(instanceId)
+        return TagSpecification.builder()
+                .resourceType(ResourceType.INSTANCE)
                 .tags(typeTag, nameTag)
                 .build();
     }
 
+    // Filtered on the server side by type tag and state, all pages
+    private List<Instance> describeInstances(String typeTagValue, InstanceStateName... states) {
+        List<String> stateNames = new ArrayList<>();
+        for (InstanceStateName state : states) {
+            stateNames.add(state.toString());
+        }
+        DescribeInstancesRequest request = DescribeInstancesRequest.builder()
+                .filters(Filter.builder().name("tag:" + TYPE_TAG).values(typeTagValue).build(),
+                        Filter.builder().name("instance-state-name").values(stateNames).build())
+                .build();
+
+        List<Instance> instances = new ArrayList<>();
+        for (Reservation reservation : ec2.describeInstancesPaginator(request).reservations()) {
+            instances.addAll(reservation.instances());
+        }
+        return instances;
+    }
+
+    private List<String> getInstanceIds(String typeTagValue, InstanceStateName... states) {
+        List<String> instanceIds = new ArrayList<>();
+        for (Instance instance : describeInstances(typeTagValue, states)) {
+            instanceIds.add(instance.instanceId());
+        }
+        return instanceIds;
+    }
+
+    @Override
     public void runManager() {
         // Check if a manager node exists
-        boolean isManagerExists = false;
-        for (Reservation reservation : ec2.describeInstances().reservations()) {
-            for (Instance instance : reservation.instances()) {
-                for (Tag tag : instance.tags()) {
-                    if (tag.key().equals(TYPE_TAG) && tag.value().equals(MANAGER_TYPE_TAG_VALUE)) {
-                        if (!instance.state().name().equals(InstanceStateName.TERMINATED) &&
-                                !instance.state().name().equals(InstanceStateName.SHUTTING_DOWN)) {
-                            isManagerExists = true;
-                            logger.info("Manager instance " + instance.instanceId() + " is " + instance.state().name());
-                            if (instance.state().name().equals(InstanceStateName.RUNNING) ||
-                                    instance.state().name().equals(InstanceStateName.PENDING)) {
-                                // If manager is running or pending, do nothing
-                            } else {
-                                // Terminate and create a new manager instance
-                                terminateEC2Instance(instance.instanceId());
-                                createManagerInstance();
-                            }
-                            return;
-                        } else {
-                            // Instance is terminated or shutting down, continue checking other instances
-                            break;
-                        }
-                    }
-                }
+        for (Instance instance : describeInstances(MANAGER_TYPE_TAG_VALUE, InstanceStateName.PENDING,
+                InstanceStateName.RUNNING, InstanceStateName.STOPPING, InstanceStateName.STOPPED)) {
+            logger.info("Manager instance " + instance.instanceId() + " is " + instance.state().name());
+            if (instance.state().name().equals(InstanceStateName.RUNNING) ||
+                    instance.state().name().equals(InstanceStateName.PENDING)) {
+                // If manager is running or pending, do nothing
+            } else {
+                // Terminate and create a new manager instance
+                terminateEC2Instance(instance.instanceId());
+                createManagerInstance();
             }
+            return;
         }
-        if (!isManagerExists) {
-            logger.info("Manager instance does not exist");
-            createManagerInstance();
-        }
+        logger.info("Manager instance does not exist");
+        createManagerInstance();
     }
 
     private void createManagerInstance() {
@@ -99,84 +127,110 @@ public class EC2Handler {
                 MANAGER_NAME_TAG_VALUE, INSTANCE_TYPE);
     }
 
-    public void createWorkerInstance() {
-        logger.info("Creating worker instance");
-        createEC2Instance(WORKER_INSTANCE_SCRIPT, WORKER_TYPE_TAG_VALUE,
-                WORKER_NAME_TAG_VALUE, INSTANCE_TYPE);
+    public List<String> createWorkerInstances(int count) {
+        logger.info("Creating " + count + " worker instances");
+        return createEC2Instances(WORKER_INSTANCE_SCRIPT, WORKER_TYPE_TAG_VALUE,
+                WORKER_NAME_TAG_VALUE, INSTANCE_TYPE, count);
     }
 
-    public int countActiveWorkers() {
-        int activeWorkers = 0;
-        for (Reservation reservation : ec2.describeInstances().reservations()) {
-            for (Instance instance : reservation.instances()) {
-                for (Tag tag : instance.tags()) {
-                    if (tag.key().equals(TYPE_TAG) && tag.value().equals(WORKER_TYPE_TAG_VALUE)) {
-                        if (instance.state().name().equals(InstanceStateName.RUNNING) ||
-                                instance.state().name().equals(InstanceStateName.PENDING)) {
-                            activeWorkers++;
-                        }
-                    }
-                }
-            }
-        }
-        logger.info("Active workers: " + activeWorkers);
-        return activeWorkers;
+    // Launches on a background thread so the caller keeps handling requests while EC2 answers
+    @Override
+    public CompletableFuture<List<String>> createWorkerInstancesAsync(int count) {
+        return CompletableFuture.supplyAsync(() -> createWorkerInstances(count), launchExecutor);
     }
 
-    public void terminateEC2Instance(String instanceId) {
-        logger.info("Terminating EC2 instance " + instanceId);
-        TerminateInstancesRequest request = TerminateInstancesRequest.builder()
-                .instanceIds(instanceId)
-                .build();
-        ec2.terminateInstances(request);
+    @Override
+    public List<String> getActiveWorkerIds() {
+        return getInstanceIds(WORKER_TYPE_TAG_VALUE, InstanceStateName.PENDING, InstanceStateName.RUNNING);
     }
 
-    public void terminateAllWorkers() {
-        logger.info("Terminating all workers");
-        for (Reservation reservation : ec2.describeInstances().reservations()) {
+    @Override
+    public List<String> getReadyWorkerIds() {
+        DescribeInstancesRequest request = DescribeInstancesRequest.builder()
+                .filters(Filter.builder().name("tag:" + TYPE_TAG).values(WORKER_TYPE_TAG_VALUE).build(),
+                        Filter.builder().name("tag-key").values(READY_TAG).build(),
+                        Filter.builder().name("instance-state-name").values(InstanceStateName.RUNNING.toString()).build())
+                .build();
+
+        List<String> readyWorkerIds = new ArrayList<>();
+        for (Reservation reservation : ec2.describeInstancesPaginator(request).reservations()) {
             for (Instance instance : reservation.instances()) {
-                for (Tag tag : instance.tags()) {
-                    if (tag.key().equals(TYPE_TAG) && tag.value().equals(WORKER_TYPE_TAG_VALUE)) {
-                        if (instance.state().name().equals(InstanceStateName.RUNNING) ||
-                                instance.state().name().equals(InstanceStateName.PENDING)) {
-                            terminateEC2Instance(instance.instanceId());
-                        }
-                    }
-                }
+                readyWorkerIds.add(instance.instanceId());
             }
         }
+        return readyWorkerIds;
     }
 
-    public void terminateManager() {
-        logger.info("Terminating manager");
-        for (Reservation reservation : ec2.describeInstances().reservations()) {
-            for (Instance instance : reservation.instances()) {
-                for (Tag tag : instance.tags()) {
-                    if (tag.key().equals(TYPE_TAG) && tag.value().equals(MANAGER_TYPE_TAG_VALUE)) {
-                        if (instance.state().name().equals(InstanceStateName.RUNNING) ||
-                                instance.state().name().equals(InstanceStateName.PENDING)) {
-                            terminateEC2Instance(instance.instanceId());
-                        }
-                    }
-                }
-            }
+    // Id of the instance this JVM runs on, from the instance metadata service
+    @Override
+    public String getCurrentInstanceId() {
+        try {
+            String token = requestInstanceMetadata("PUT", "api/token",
+                    "X-aws-ec2-metadata-token-ttl-seconds", String.valueOf(INSTANCE_METADATA_TOKEN_TTL));
+            return requestInstanceMetadata("GET", "meta-data/instance-id", "X-aws-ec2-metadata-token", token);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the instance id from the instance metadata service", e);
         }
     }
 
-    public void terminateWorkerInstance() {
-        logger.info("Terminating worker instance");
-        for (Reservation reservation : ec2.describeInstances().reservations()) {
-            for (Instance instance : reservation.instances()) {
-                for (Tag tag : instance.tags()) {
-                    if (tag.key().equals(TYPE_TAG) && tag.value().equals(WORKER_TYPE_TAG_VALUE)) {
-                        if (instance.state().name().equals(InstanceStateName.RUNNING) ||
-                                instance.state().name().equals(InstanceStateName.PENDING)) {
-                            terminateEC2Instance(instance.instanceId());
-                            return;
-                        }
-                    }
+    private String requestInstanceMetadata(String method, String path, String header, String value) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(INSTANCE_METADATA_ENDPOINT + path).openConnection();
+        try {
+            connection.setRequestMethod(method);
+            connection.setRequestProperty(header, value);
+            connection.setConnectTimeout(INSTANCE_METADATA_TIMEOUT);
+            connection.setReadTimeout(INSTANCE_METADATA_TIMEOUT);
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException(method + " " + path + " returned " + connection.getResponseCode());
+            }
+            try (InputStream body = connection.getInputStream()) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
                 }
+                return new String(content.toByteArray(), StandardCharsets.UTF_8).trim();
             }
+        } finally {
+            connection.disconnect();
         }
     }
+
+    @Override
+    public void tagInstance(String instanceId, String key, String value) {
+        CreateTagsRequest request = CreateTagsRequest.builder()
+                .resources(instanceId)
+                .tags(Tag.builder().key(key).value(value).build())
+                .build();
+        ec2.createTags(request);
+    }
+
+    public void terminateEC2Instance(String instanceId) {
+        terminateEC2Instances(Collections.singletonList(instanceId));
+    }
+
+    @Override
+    public void terminateEC2Instances(List<String> instanceIds) {
+        for (int i = 0; i < instanceIds.size(); i += MAX_INSTANCES_PER_TERMINATE) {
+            List<String> batch = instanceIds.subList(i, Math.min(i + MAX_INSTANCES_PER_TERMINATE, instanceIds.size()));
+            logger.info("Terminating EC2 instances " + batch);
+            TerminateInstancesRequest request = TerminateInstancesRequest.builder()
+                    .instanceIds(batch)
+                    .build();
+            ec2.terminateInstances(request);
+        }
+    }
+
+    @Override
+    public void terminateAllWorkers() {
+        logger.info("Terminating all workers");
+        terminateEC2Instances(getActiveWorkerIds());
+    }
+
+    @Override
+    public void terminateManager() {
+        logger.info("Terminating manager");
+        terminateEC2Instances(getInstanceIds(MANAGER_TYPE_TAG_VALUE, InstanceStateName.PENDING, InstanceStateName.RUNNING));
+    }
 }
@@ -0,0 +1,102 @@
+package aws;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Reads an S3 object in order while the following parts are fetched in parallel with ranged GETs
+class RangedObjectInputStream extends InputStream {
+    private final S3Client s3;
+    private final ExecutorService executor;
+    private final String bucketName;
+    private final String key;
+    private final long objectSize;
+    private final int partSize;
+    private final int maxPendingParts;
+    private final Deque<Future<byte[]>> pendingParts = new ArrayDeque<>();
+    private long nextPartOffset = 0;
+    private byte[] currentPart = new byte[0];
+    private int position = 0;
+
+    RangedObjectInputStream(S3Client s3, ExecutorService executor, String bucketName, String key,
+                            long objectSize, int partSize, int maxPendingParts) {
+        this.s3 = s3;
+        this.executor = executor;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.objectSize = objectSize;
+        this.partSize = partSize;
+        this.maxPendingParts = maxPendingParts;
+        fetchParts();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == currentPart.length && !nextPart()) {
+            return -1;
+        }
+        return currentPart[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == currentPart.length && !nextPart()) {
+            return -1;
+        }
+        int bytesRead = Math.min(length, currentPart.length - position);
+        System.arraycopy(currentPart, position, buffer, offset, bytesRead);
+        position += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public int available() {
+        return currentPart.length - position;
+    }
+
+    @Override
+    public void close() {
+        for (Future<byte[]> pendingPart : pendingParts) {
+            pendingPart.cancel(true);
+        }
+        pendingParts.clear();
+        nextPartOffset = objectSize;
+    }
+
+    private boolean nextPart() throws IOException {
+        Future<byte[]> part = pendingParts.poll();
+        if (part == null) {
+            return false;
+        }
+        try {
+            currentPart = part.get();
+        } catch (Exception e) {
+            close();
+            throw new IOException("Failed to download part of " + key + ": " + e.getMessage(), e);
+        }
+        position = 0;
+        fetchParts();
+        return true;
+    }
+
+    private void fetchParts() {
+        while (pendingParts.size() < maxPendingParts && nextPartOffset < objectSize) {
+            long start = nextPartOffset, end = Math.min(start + partSize, objectSize) - 1;
+            pendingParts.add(executor.submit(() -> s3.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .range("bytes=" + start + "-" + end)
+                    .build()).asByteArray()));
+            nextPartOffset = end + 1;
+        }
+    }
+}
@@ -7,16 +7,36 @@ import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import software.amazon.awssdk.core.exception.SdkClientException;
+
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import transport.BlobStore;
 
-import static aws.AWSConfig.JAR_BUCKET_NAME;
-import static aws.AWSConfig.REGION2;
+import static aws.AWSConfig.*;
 
-public class S3Handler {
+public class S3Handler implements BlobStore {
     private final S3Client s3 = S3Client.builder().region(REGION2).build();
     private final Logger logger = LogManager.getLogger(S3Handler.class);
+    private final ExecutorService transferExecutor = Executors.newFixedThreadPool(S3_TRANSFER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "s3-transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
+    @Override
     public void createS3BucketIfNotExists(String bucketName) {
         try {
             s3.createBucket(CreateBucketRequest
@@ -37,7 +57,21 @@ public class S3Handler {
     }
 
 
+    @Override
     public void uploadFileToS3(String bucketName, String key, File inputFile) {
+        if (inputFile.length() > S3_MULTIPART_THRESHOLD) {
+            uploadMultipart(bucketName, key, inputFile.length(), (offset, length) -> {
+                byte[] part = new byte[length];
+                try (RandomAccessFile file = new RandomAccessFile(inputFile, "r")) {
+                    file.seek(offset);
+                    file.readFully(part);
+                }
+                return part;
+            });
+            logger.info("File " + inputFile.getName() + " uploaded to S3 bucket " + bucketName + " with key " + key);
+            return;
+        }
+
         PutObjectRequest objectRequest = PutObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
@@ -47,25 +81,177 @@ public class S3Handler {
         logger.info("File " + inputFile.getName() + " uploaded to S3 bucket " + bucketName + " with key " + key);
     }
 
+    @Override
     public void uploadContentToS3(String bucketName, String key, String content) {
+        uploadBytesToS3(bucketName, key, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void uploadBytesToS3(String bucketName, String key, byte[] content) {
+        if (content.length > S3_MULTIPART_THRESHOLD) {
+            uploadMultipart(bucketName, key, content.length, (offset, length) -> {
+                byte[] part = new byte[length];
+                System.arraycopy(content, (int) offset, part, 0, length);
+                return part;
+            });
+            logger.info("Content uploaded to S3 bucket " + bucketName + " with key " + key);
+            return;
+        }
+
         PutObjectRequest objectRequest = PutObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
                 .build();
-        s3.putObject(objectRequest, RequestBody.fromString(content));
+        s3.putObject(objectRequest, RequestBody.fromBytes(content));
 
         logger.info("Content uploaded to S3 bucket " + bucketName + " with key " + key);
     }
 
+    @Override
+    public void downloadObjectToFile(String bucketName, String key, File outputFile) {
+        logger.info("Downloading object " + key + " from S3 bucket " + bucketName + " to " + outputFile.getPath());
+        long objectSize = getObjectSize(bucketName, key);
+        if (objectSize <= S3_MULTIPART_THRESHOLD) {
+            GetObjectRequest objectRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+            s3.getObject(objectRequest, ResponseTransformer.toFile(outputFile));
+            return;
+        }
+
+        // Parallel ranged GETs, each part is written at its own position
+        try (FileChannel file = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            List<Future<?>> parts = new ArrayList<>();
+            for (long offset = 0; offset < objectSize; offset += S3_PART_SIZE) {
+                long start = offset, end = Math.min(offset + S3_PART_SIZE, objectSize) - 1;
+                parts.add(transferExecutor.submit(() -> {
+                    byte[] part = s3.getObjectAsBytes(GetObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .range("bytes=" + start + "-" + end)
+                            .build()).asByteArray();
+                    ByteBuffer buffer = ByteBuffer.wrap(part);
+                    long position = start;
+                    while (buffer.hasRemaining()) {
+                        position += file.write(buffer, position);
+                    }
+                    return null;
+                }));
+            }
+            waitForParts(parts);
+        } catch (IOException e) {
+            throw SdkClientException.create("Failed to download " + key + " to " + outputFile.getPath(), e);
+        }
+    }
+
+    // Live stream of the object, large objects are read ahead with parallel ranged GETs
+    @Override
     public InputStream downloadObjectFromS3(String bucketName, String key) {
         logger.info("Downloading object " + key + " from S3 bucket " + bucketName);
+        long objectSize = getObjectSize(bucketName, key);
+        if (objectSize > S3_MULTIPART_THRESHOLD) {
+            return new RangedObjectInputStream(s3, transferExecutor, bucketName, key,
+                    objectSize, S3_PART_SIZE, S3_TRANSFER_THREADS);
+        }
         GetObjectRequest objectRequest = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
                 .build();
-        return s3.getObject(objectRequest, ResponseTransformer.toBytes()).asInputStream();
+        return s3.getObject(objectRequest);
+    }
+
+    @Override
+    public long getObjectSize(String bucketName, String key) {
+        return s3.headObject(HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build()).contentLength();
+    }
+
+    @Override
+    public String createMultipartUpload(String bucketName, String key) {
+        return s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build()).uploadId();
+    }
+
+    @Override
+    public CompletedPart uploadPart(String bucketName, String key, String uploadId, int partNumber, byte[] part) {
+        UploadPartResponse response = s3.uploadPart(UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build(), RequestBody.fromBytes(part));
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build();
+    }
+
+    @Override
+    public void completeMultipartUpload(String bucketName, String key, String uploadId, List<CompletedPart> parts) {
+        s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build());
+    }
+
+    @Override
+    public void abortMultipartUpload(String bucketName, String key, String uploadId) {
+        s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .build());
+    }
+
+    private void uploadMultipart(String bucketName, String key, long size, PartReader partReader) {
+        String uploadId = createMultipartUpload(bucketName, key);
+        try {
+            // Parts are read by the transfer threads, so at most S3_TRANSFER_THREADS parts are in memory
+            List<Future<CompletedPart>> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += S3_PART_SIZE, partNumber++) {
+                long partOffset = offset;
+                int partLength = (int) Math.min(S3_PART_SIZE, size - offset), number = partNumber;
+                parts.add(transferExecutor.submit(() ->
+                        uploadPart(bucketName, key, uploadId, number, partReader.read(partOffset, partLength))));
+            }
+            List<CompletedPart> completedParts = new ArrayList<>();
+            for (Future<CompletedPart> part : parts) {
+                completedParts.add(part.get());
+            }
+            completeMultipartUpload(bucketName, key, uploadId, completedParts);
+            logger.info("Uploaded " + completedParts.size() + " parts to S3 bucket " + bucketName + " with key " + key);
+        } catch (Exception e) {
+            abortMultipartUpload(bucketName, key, uploadId);
+            throw SdkClientException.create("Multipart upload of " + key + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void waitForParts(List<Future<?>> parts) {
+        try {
+            for (Future<?> part : parts) {
+                part.get();
+            }
+        } catch (Exception e) {
+            for (Future<?> part : parts) {
+                part.cancel(true);
+            }
+            throw SdkClientException.create("Parallel transfer failed: " + e.getMessage(), e);
+        }
+    }
+
+    private interface PartReader {
+        byte[] read(long offset, int length) throws IOException;
     }
 
+    @Override
     public void deleteObjectFromS3(String bucketName, String key) {
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                 .bucket(bucketName)
@@ -76,6 +262,7 @@ public class S3Handler {
         logger.info("Object " + key + " deleted from S3 bucket " + bucketName);
     }
 
+    @Override
     public void emptyS3Bucket(String bucketName) {
         ListObjectsRequest listObjects = ListObjectsRequest.builder()
                 .bucket(bucketName)
@@ -91,6 +278,7 @@ public class S3Handler {
         logger.info("S3 bucket " + bucketName + " emptied");
     }
 
+    @Override
     public void deleteS3Bucket(String bucketName) {
         DeleteBucketRequest deleteBucketRequest = DeleteBucketRequest.builder()
                 .bucket(bucketName)
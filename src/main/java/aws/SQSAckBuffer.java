@@ -0,0 +1,159 @@
+package aws;
+
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static aws.AWSConfig.*;
+
+// Coalesces message deletes and visibility changes into batch requests per queue
+class SQSAckBuffer {
+    private final SqsClient sqs;
+    private final Map<String, List<DeleteMessageBatchRequestEntry>> pendingDeletes = new HashMap<>();
+    private final Map<String, List<ChangeMessageVisibilityBatchRequestEntry>> pendingVisibilityChanges = new HashMap<>();
+    private int pendingReceipts = 0;
+    private ScheduledExecutorService flusher;
+    private final Histogram deleteLatency = MetricsRegistry.getInstance().histogram(
+            MetricsRegistry.name(SQS_LATENCY_METRIC, "operation", "delete"), SQS_LATENCY_HELP);
+    private final Logger logger = LogManager.getLogger(SQSAckBuffer.class);
+
+    SQSAckBuffer(SqsClient sqs) {
+        this.sqs = sqs;
+    }
+
+    void deleteMessage(String queueUrl, Message message) {
+        List<DeleteMessageBatchRequestEntry> fullBatch = null;
+        boolean flushAll;
+        synchronized (this) {
+            startFlusher();
+            List<DeleteMessageBatchRequestEntry> entries = pendingDeletes.computeIfAbsent(queueUrl, k -> new ArrayList<>());
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(entries.size()))
+                    .receiptHandle(message.receiptHandle())
+                    .build());
+            pendingReceipts++;
+            if (entries.size() == MAX_BATCH_ENTRIES) {
+                fullBatch = pendingDeletes.remove(queueUrl);
+                pendingReceipts -= fullBatch.size();
+            }
+            flushAll = pendingReceipts >= MAX_PENDING_ACKS;
+        }
+        if (fullBatch != null) {
+            sendDeleteBatch(queueUrl, fullBatch);
+        }
+        if (flushAll) {
+            flush();
+        }
+    }
+
+    void changeMessageVisibility(String queueUrl, Message message, int visibilityTimeout) {
+        List<ChangeMessageVisibilityBatchRequestEntry> fullBatch = null;
+        boolean flushAll;
+        synchronized (this) {
+            startFlusher();
+            List<ChangeMessageVisibilityBatchRequestEntry> entries = pendingVisibilityChanges.computeIfAbsent(queueUrl, k -> new ArrayList<>());
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(String.valueOf(entries.size()))
+                    .receiptHandle(message.receiptHandle())
+                    .visibilityTimeout(visibilityTimeout)
+                    .build());
+            pendingReceipts++;
+            if (entries.size() == MAX_BATCH_ENTRIES) {
+                fullBatch = pendingVisibilityChanges.remove(queueUrl);
+                pendingReceipts -= fullBatch.size();
+            }
+            flushAll = pendingReceipts >= MAX_PENDING_ACKS;
+        }
+        if (fullBatch != null) {
+            sendVisibilityBatch(queueUrl, fullBatch);
+        }
+        if (flushAll) {
+            flush();
+        }
+    }
+
+    void flush() {
+        Map<String, List<DeleteMessageBatchRequestEntry>> deletes;
+        Map<String, List<ChangeMessageVisibilityBatchRequestEntry>> visibilityChanges;
+        synchronized (this) {
+            if (pendingReceipts == 0) {
+                return;
+            }
+            deletes = new HashMap<>(pendingDeletes);
+            visibilityChanges = new HashMap<>(pendingVisibilityChanges);
+            pendingDeletes.clear();
+            pendingVisibilityChanges.clear();
+            pendingReceipts = 0;
+        }
+        for (Map.Entry<String, List<DeleteMessageBatchRequestEntry>> entry : deletes.entrySet()) {
+            sendDeleteBatch(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, List<ChangeMessageVisibilityBatchRequestEntry>> entry : visibilityChanges.entrySet()) {
+            sendVisibilityBatch(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void startFlusher() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqs-ack-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+            }
+        }, ACK_FLUSH_INTERVAL, ACK_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+    }
+
+    private void sendDeleteBatch(String queueUrl, List<DeleteMessageBatchRequestEntry> entries) {
+        try {
+            long start = System.nanoTime();
+            DeleteMessageBatchResponse response = sqs.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(entries)
+                    .build());
+            deleteLatency.recordSince(start);
+            logFailures(queueUrl, response.failed());
+            logger.info("Deleted " + response.successful().size() + " messages from " + queueUrl);
+        } catch (SqsException e) {
+            // Messages become visible again after their visibility timeout
+            logger.error("Failed to delete messages from " + queueUrl + ": " + e.getMessage());
+        }
+    }
+
+    private void sendVisibilityBatch(String queueUrl, List<ChangeMessageVisibilityBatchRequestEntry> entries) {
+        try {
+            ChangeMessageVisibilityBatchResponse response = sqs.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(entries)
+                    .build());
+            logFailures(queueUrl, response.failed());
+        } catch (SqsException e) {
+            logger.error("Failed to change messages visibility in " + queueUrl + ": " + e.getMessage());
+        }
+    }
+
+    private void logFailures(String queueUrl, List<BatchResultErrorEntry> failures) {
+        for (BatchResultErrorEntry failed : failures) {
+            logger.warn("Failed batch entry in " + queueUrl + ": " + failed.code() + " " + failed.message());
+        }
+    }
+}
@@ -5,15 +5,31 @@ import org.apache.logging.log4j.Logger;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import transport.QueueService;
 
 import static aws.AWSConfig.*;
 
-public class SQSHandler {
+public class SQSHandler implements QueueService {
 
     private final SqsClient sqs = SqsClient.builder().region(REGION1).build();
     private final Logger logger = LogManager.getLogger(SQSHandler.class);
+    private final SQSAckBuffer ackBuffer = new SQSAckBuffer(sqs);
+    private final Histogram receiveLatency = MetricsRegistry.getInstance().histogram(
+            MetricsRegistry.name(SQS_LATENCY_METRIC, "operation", "receive"), SQS_LATENCY_HELP);
+    private final Histogram sendLatency = MetricsRegistry.getInstance().histogram(
+            MetricsRegistry.name(SQS_LATENCY_METRIC, "operation", "send"), SQS_LATENCY_HELP);
+    private final Histogram deleteLatency = MetricsRegistry.getInstance().histogram(
+            MetricsRegistry.name(SQS_LATENCY_METRIC, "operation", "delete"), SQS_LATENCY_HELP);
 
+    @Override
     public String createQueueIfNotExist(String queueName) {
         try {
             CreateQueueRequest request = CreateQueueRequest.builder()
@@ -28,6 +44,7 @@ public class SQSHandler {
         }
     }
 
+    @Override
     public String getQueueUrl(String queueName) {
         GetQueueUrlRequest request = GetQueueUrlRequest.builder()
                 .queueName(queueName)
@@ -35,6 +52,21 @@ public class SQSHandler {
         return sqs.getQueueUrl(request).queueUrl();
     }
 
+    @Override
+    public int getQueueDepth(String queueUrl) {
+        // Messages waiting plus messages currently being processed
+        GetQueueAttributesRequest request = GetQueueAttributesRequest.builder()
+                .queueUrl(queueUrl)
+                .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                        QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+                .build();
+        int depth = 0;
+        for (String count : sqs.getQueueAttributes(request).attributes().values()) {
+            depth += Integer.parseInt(count);
+        }
+        return depth;
+    }
+
     public String getLocalAppNameFromQueueUrl(String queueUrl) {
         return queueUrl.split("/")[4].split("-")[1];
     }
@@ -53,6 +85,7 @@ public class SQSHandler {
         return null;
     }
 
+    @Override
     public void deleteQueue(String queueUrl) {
         DeleteQueueRequest request = DeleteQueueRequest.builder()
                 .queueUrl(queueUrl)
@@ -71,23 +104,127 @@ public class SQSHandler {
         }
     }
 
+    @Override
     public void sendMessage(String queueUrl, String message) {
+        long start = System.nanoTime();
         sqs.sendMessage(SendMessageRequest.builder()
                 .queueUrl(queueUrl)
                 .messageBody(message)
                 .build());
+        sendLatency.recordSince(start);
 
         logger.info("Sent message to " + queueUrl);
     }
 
+    // Sends the messages in batches of up to 10 entries / 256 KB, returns the messages that could not be sent:
+    // entries SQS rejected as the sender's fault, and entries that still failed after BATCH_SEND_RETRIES retries
+    @Override
+    public List<String> sendMessageBatch(String queueUrl, List<String> messages) {
+        List<String> unsent = new ArrayList<>();
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+        int payloadSize = 0;
+        for (String message : messages) {
+            int messageSize = message.getBytes(StandardCharsets.UTF_8).length;
+            if (entries.size() == MAX_BATCH_ENTRIES ||
+                    (!entries.isEmpty() && payloadSize + messageSize > MAX_BATCH_PAYLOAD_SIZE)) {
+                unsent.addAll(sendBatch(queueUrl, entries));
+                entries = new ArrayList<>();
+                payloadSize = 0;
+            }
+            entries.add(SendMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(entries.size()))
+                    .messageBody(message)
+                    .build());
+            payloadSize += messageSize;
+        }
+        if (!entries.isEmpty()) {
+            unsent.addAll(sendBatch(queueUrl, entries));
+        }
+        return unsent;
+    }
+
+    // Returns the bodies of the entries that could not be sent
+    private List<String> sendBatch(String queueUrl, List<SendMessageBatchRequestEntry> entries) {
+        int batchSize = entries.size();
+        List<String> rejected = new ArrayList<>();
+        for (int attempt = 0; attempt <= BATCH_SEND_RETRIES; attempt++) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep((long) BATCH_RETRY_DELAY * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            try {
+                long start = System.nanoTime();
+                SendMessageBatchResponse response = sqs.sendMessageBatch(SendMessageBatchRequest.builder()
+                        .queueUrl(queueUrl)
+                        .entries(entries)
+                        .build());
+                sendLatency.recordSince(start);
+                if (response.failed().isEmpty()) {
+                    entries = new ArrayList<>();
+                    break;
+                }
+
+                // Retry only the failed entries that are not caused by the message itself
+                Set<String> failedIds = new HashSet<>();
+                Set<String> rejectedIds = new HashSet<>();
+                for (BatchResultErrorEntry failed : response.failed()) {
+                    logger.warn("Failed to send batch entry to " + queueUrl + ": " + failed.code() + " " + failed.message());
+                    if (failed.senderFault()) {
+                        rejectedIds.add(failed.id());
+                    } else {
+                        failedIds.add(failed.id());
+                    }
+                }
+                List<SendMessageBatchRequestEntry> retryEntries = new ArrayList<>();
+                for (SendMessageBatchRequestEntry entry : entries) {
+                    if (failedIds.contains(entry.id())) {
+                        retryEntries.add(entry);
+                    } else if (rejectedIds.contains(entry.id())) {
+                        rejected.add(entry.messageBody());
+                    }
+                }
+                entries = retryEntries;
+                if (entries.isEmpty()) {
+                    break;
+                }
+            } catch (SqsException e) {
+                logger.warn("Failed to send batch to " + queueUrl + ": " + e.getMessage());
+            }
+        }
+
+        List<String> unsent = new ArrayList<>(rejected);
+        for (SendMessageBatchRequestEntry entry : entries) {
+            unsent.add(entry.messageBody());
+        }
+        if (!unsent.isEmpty()) {
+            logger.error("Gave up sending " + unsent.size() + " messages to " + queueUrl);
+        }
+        logger.info("Sent batch of " + (batchSize - unsent.size()) + " messages to " + queueUrl);
+        return unsent;
+    }
+
+    @Override
     public List<Message> receiveMessages(String queueUrl) {
+        return receiveMessages(queueUrl, MAX_BATCH_ENTRIES);
+    }
+
+    @Override
+    public List<Message> receiveMessages(String queueUrl, int maxNumberOfMessages) {
         ReceiveMessageRequest request = ReceiveMessageRequest.builder()
                 .queueUrl(queueUrl)
-                .maxNumberOfMessages(10)
+                .maxNumberOfMessages(maxNumberOfMessages)
                 .waitTimeSeconds(LONG_POLLING_TIME) // long polling
                 .visibilityTimeout(VISIBILITY_TIMEOUT) // prevents the same message from being delivered to multiple workers
+                .attributeNamesWithStrings(MessageSystemAttributeName.SENT_TIMESTAMP.toString()) // for the queue wait time
                 .build();
-        return sqs.receiveMessage(request).messages();
+        long start = System.nanoTime();
+        List<Message> messages = sqs.receiveMessage(request).messages();
+        receiveLatency.recordSince(start);
+        return messages;
     }
 
     public Message receiveSingleMessage(String queueUrl) {
@@ -101,6 +238,7 @@ public class SQSHandler {
         return messages.isEmpty() ? null : messages.get(0);
     }
 
+    @Override
     public void changeMessageVisibility(String queueUrl, Message message, int visibilityTimeout) {
         ChangeMessageVisibilityRequest request = ChangeMessageVisibilityRequest.builder()
                 .queueUrl(queueUrl)
@@ -110,13 +248,33 @@ public class SQSHandler {
         sqs.changeMessageVisibility(request);
     }
 
+    @Override
     public void deleteMessage(String queueUrl, Message message) {
         DeleteMessageRequest request = DeleteMessageRequest.builder()
                 .queueUrl(queueUrl)
                 .receiptHandle(message.receiptHandle())
                 .build();
+        long start = System.nanoTime();
         sqs.deleteMessage(request);
+        deleteLatency.recordSince(start);
 
         logger.info("Deleted message from " + queueUrl);
     }
+
+    // Buffered delete, sent within ACK_FLUSH_INTERVAL as part of a DeleteMessageBatch
+    @Override
+    public void acknowledgeMessage(String queueUrl, Message message) {
+        ackBuffer.deleteMessage(queueUrl, message);
+    }
+
+    // Buffered visibility change, sent within ACK_FLUSH_INTERVAL as part of a ChangeMessageVisibilityBatch
+    @Override
+    public void returnMessage(String queueUrl, Message message, int visibilityTimeout) {
+        ackBuffer.changeMessageVisibility(queueUrl, message, visibilityTimeout);
+    }
+
+    @Override
+    public void flushAcknowledgements() {
+        ackBuffer.flush();
+    }
 }
@@ -4,8 +4,11 @@ import aws.AWS;
 import static aws.AWSConfig.*;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
+import messages.LocalAppRequest;
+import messages.LocalAppResponse;
 import software.amazon.awssdk.services.sqs.model.Message;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -14,7 +17,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public class LocalApp {
-    private static final AWS aws = new AWS();
+    private static final AWS aws = AWS.getInstance();
     private static final String localAppId = UUID.randomUUID().toString().replace(DEFAULT_DELIMITER, "").substring(16);
     private static final Logger logger = LogManager.getLogger(LocalApp.class);
 
@@ -38,7 +41,7 @@ public class LocalApp {
         try {
             aws.s3.createS3BucketIfNotExists(BUCKET_NAME);
             localToManagerQueueUrl = aws.sqs.createQueueIfNotExist(LOCAL_TO_MANAGER_QUEUE_NAME);
-            managerToLocalQueueUrl = aws.sqs.createQueueIfNotExist(MANAGER_TO_LOCAL_QUEUE_NAME);
+            managerToLocalQueueUrl = aws.sqs.createQueueIfNotExist(aws.sqs.getLocalAppQueueName(localAppId));
         } catch (Exception e) {
             logger.error("Error creating S3 bucket or SQS queues: " + e.getMessage());
             return;
@@ -49,13 +52,15 @@ public class LocalApp {
         startManager();
 
         receiveResponsesFromManager(env, managerToLocalQueueUrl);
+        aws.sqs.deleteQueue(managerToLocalQueueUrl);
 
+        waitForExecutorToFinish(env.executor);
+
+        // Only after the summaries were read, the manager deletes the bucket when it terminates
         if (env.terminate) {
             terminateManager();
         }
 
-        waitForExecutorToFinish(env.executor);
-
         // Delete S3 folder
         aws.s3.deleteObjectFromS3(BUCKET_NAME, localAppId + BUCKET_KEY_DELIMITER);
 
@@ -66,13 +71,13 @@ public class LocalApp {
         for (int inputIndex = 0; inputIndex < env.inputFilesPaths.length; inputIndex++) {
             File inputFile = new File(env.inputFilesPaths[inputIndex]);
             aws.s3.uploadFileToS3(BUCKET_NAME, localAppId + BUCKET_KEY_DELIMITER + inputFile.getName(), inputFile);
-            // <local_app_id>::analyze::<input_file>::<input_index>::<reviews_per_worker>
-            aws.sqs.sendMessage(localToManagerQueueUrl, String.join(MESSAGE_DELIMITER,
+            aws.sqs.sendMessage(localToManagerQueueUrl, LocalAppRequest.analyze(
                     localAppId,
-                    ANALYZE_TASK,
                     inputFile.getName(), // S3 bucket key
                     Integer.toString(inputIndex),
-                    env.reviewsPerWorker + ""));
+                    env.reviewsPerWorker,
+                    env.priority,
+                    env.deadline).encode());
 
             logger.info("Sent task to manager: " + inputFile.getName() + " for inputIndex " + inputIndex + " with " + env.reviewsPerWorker + " reviews per worker");
         }
@@ -80,48 +85,39 @@ public class LocalApp {
 
     private static void receiveResponsesFromManager(LocalAppEnv env, String managerToLocalQueueUrl) {
         int filesLeftToProcess = env.numberOfFiles;
+        List<Future<?>> localAppTasks = new ArrayList<>();
         while (filesLeftToProcess > 0) {
             logger.info("Polling for responses from manager");
             List<Message> responses = aws.sqs.receiveMessages(managerToLocalQueueUrl); // long polling
-            for (Message response : responses) { // response for each input file
-                String responseBody = response.body();
-                // <local_app_id>::<response_status>::<summary_file_name>::<input_index>
-                String[] responseContent = responseBody.split(MESSAGE_DELIMITER, -1);
-                String receivedLocalAppId = responseContent[0],
-                        status = responseContent[1], // done or error
-                        summaryFileName = responseContent[2],
-                        inputIndex = responseContent[3];
-
-                if (receivedLocalAppId.equals(localAppId)) {
-                    logger.info("Received response from manager: " + responseBody);
-
-                    if (status.equals(RESPONSE_STATUS_DONE)) {
-                        Future<?> localAppTask = env.executor.submit(new LocalAppTask(
-                                localAppId,
-                                env.outputFilesPaths[Integer.parseInt(inputIndex)],
-                                summaryFileName));
-
-                        // Wait for task to finish
-                        try {
-                            localAppTask.get();
-                        } catch (Exception e) {
-                            logger.error(e.getMessage());
-                        }
-                    } else {
-                        String errorMessage = responseContent[4];
-                        logger.error("Error response from manager: " + errorMessage);
-                    }
-
-                    filesLeftToProcess--;
-                    aws.sqs.deleteMessage(managerToLocalQueueUrl, response);
+            for (Message response : responses) { // response for each input file, only this local app reads the queue
+                LocalAppResponse localAppResponse = LocalAppResponse.decode(response.body());
+
+                logger.info("Received response from manager: " + localAppResponse);
+
+                if (localAppResponse.getStatus().equals(RESPONSE_STATUS_DONE)) {
+                    // Downloaded and rendered while polling for the other files
+                    localAppTasks.add(env.executor.submit(new LocalAppTask(
+                            localAppId,
+                            env.outputFilesPaths[Integer.parseInt(localAppResponse.getInputIndex())],
+                            localAppResponse.getSummaryFileName())));
                 } else {
-                    // Put back in queue
-                    logger.info("Putting back irrelevant response in managerToLocal queue");
-                    aws.sqs.changeMessageVisibility(managerToLocalQueueUrl, response, RETURN_TASK_TIME);
+                    logger.error("Error response from manager: " + localAppResponse.getErrorMessage());
                 }
+
+                filesLeftToProcess--;
+                aws.sqs.acknowledgeMessage(managerToLocalQueueUrl, response);
             }
         }
+        aws.sqs.flushAcknowledgements();
 
+        // Wait for all files to be rendered
+        for (Future<?> localAppTask : localAppTasks) {
+            try {
+                localAppTask.get();
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+            }
+        }
     }
 
     private static void waitForExecutorToFinish(ThreadPoolExecutor executor) {
@@ -151,8 +147,7 @@ public class LocalApp {
         logger.info("Sending terminate message to manager");
         try {
             String localToManagerQueueUrl = aws.sqs.getQueueUrl(LOCAL_TO_MANAGER_QUEUE_NAME);
-            aws.sqs.sendMessage(localToManagerQueueUrl, String.join(MESSAGE_DELIMITER,
-                    localAppId, TERMINATE_TASK));
+            aws.sqs.sendMessage(localToManagerQueueUrl, LocalAppRequest.terminate(localAppId).encode());
         } catch (Exception e) {
             logger.error("Error sending terminate message to manager: " + e.getMessage());
         }
@@ -1,5 +1,6 @@
 package localapp;
 
+import static aws.AWSConfig.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -10,6 +11,8 @@ public class LocalAppEnv {
     public String[] inputFilesPaths; // length = N
     public String[] outputFilesPaths; // length = N
     public ThreadPoolExecutor executor;
+    public int priority; // -Dpriority=<weight>, jobs with a higher priority send more tasks per scheduling round
+    public long deadline; // -Ddeadline=<seconds>, epoch milliseconds the jobs should be done by, 0 if none
 
 
     public LocalAppEnv(String[] args) {
@@ -29,6 +32,10 @@ public class LocalAppEnv {
         }
 
         executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(numberOfFiles);
+
+        priority = Integer.getInteger("priority", DEFAULT_JOB_PRIORITY);
+        long deadlineSeconds = Long.getLong("deadline", 0L);
+        deadline = deadlineSeconds > 0 ? System.currentTimeMillis() + deadlineSeconds * 1000 : 0;
     }
 
 }
@@ -4,11 +4,16 @@ import aws.AWS;
 import static aws.AWSConfig.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import messages.SummaryRecord;
 import java.io.BufferedReader;
-import java.io.FileWriter;
-import java.io.InputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.InputStreamReader;
-import java.util.stream.Collectors;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
 
 public class LocalAppTask implements Runnable {
     private final AWS aws = AWS.getInstance();
@@ -27,53 +32,54 @@ public class LocalAppTask implements Runnable {
     @Override
     public void run() {
         logger.info("LocalAppTask started");
-        try {
-            InputStream summaryFile = aws.s3.downloadObjectFromS3(BUCKET_NAME,
-                    localAppId + BUCKET_KEY_DELIMITER + summaryFileName);
-            String summaryText = new BufferedReader(
-                    new InputStreamReader(summaryFile)).lines().collect(Collectors.joining(""));
-            String[] summaryContent = summaryText.split(SUMMARY_DELIMITER);
-
-            logger.info("Received summary file from S3");
-
-            StringBuilder htmlContent = new StringBuilder();
-
-            htmlContent.append("<html><head><title>Reviews Summary</title>")
-                    .append("<style>table {font-family: arial, sans-serif;border-collapse: collapse;}")
-                    .append("td, th {border: 1px solid #dddddd;text-align: left;padding: 8px;}")
-                    .append("tr:nth-child(even) {background-color: #dddddd;}</style></head>")
-                    .append("<body><table><tr><th>Review No.</th><th>Review Link</th><th>Entities</th><th>Sarcasm</th></tr>");
-
-            for (int reviewIndex = 0; reviewIndex < summaryContent.length; reviewIndex++) {
-                String review = summaryContent[reviewIndex];
-                // <review_id>::<review_rating>::<review_link>::<sentiment>::<entities>
-                String[] reviewContent = review.split(MESSAGE_DELIMITER, -1);
-                String reviewId = reviewContent[0], reviewRating = reviewContent[1],
-                        reviewLink = reviewContent[2], sentiment = reviewContent[3],
-                        entities = reviewContent[4];
-
-                String colorCode = getColorCode(Integer.parseInt(sentiment));
-                String formattedEntities = entities.isEmpty() ? "" : "[" + entities + "]";
-                boolean isSarcastic = isSarcasticReview(Integer.parseInt(reviewRating));
-
-                htmlContent.append("<tr>")
-                        .append(String.format("<td>%d</td>", reviewIndex + 1))
-                        .append(String.format("<td><a href=\"%s\" style=\"color:%s\">Review Link</a><br></td>", reviewLink, colorCode))
-                        .append(String.format("<td>%s</td>", formattedEntities))
-                        .append(String.format("<td>%s</td>", isSarcastic ? "Yes" : "No"))
-                        .append("</tr>");
-            }
-            logger.info("Added " + summaryContent.length + " reviews to summary");
 
-            htmlContent.append("</table></body></html>");
+        if (!outputFilePath.endsWith(".html")) {
+            outputFilePath += ".html";
+        }
 
-            if (!outputFilePath.endsWith(".html")) {
-                outputFilePath += ".html";
+        // Records are rendered one by one from the download stream straight to the output file
+        try (SummaryReader summary = new SummaryReader(new BufferedReader(new InputStreamReader(
+                     aws.s3.downloadObjectFromS3(BUCKET_NAME, localAppId + BUCKET_KEY_DELIMITER + summaryFileName),
+                     StandardCharsets.UTF_8)));
+             Writer htmlFile = new BufferedWriter(new OutputStreamWriter(
+                     new FileOutputStream(outputFilePath), StandardCharsets.UTF_8))) {
+
+            htmlFile.write("<html><head><title>Reviews Summary</title>");
+            htmlFile.write("<style>table {font-family: arial, sans-serif;border-collapse: collapse;}");
+            htmlFile.write("td, th {border: 1px solid #dddddd;text-align: left;padding: 8px;}");
+            htmlFile.write("tr:nth-child(even) {background-color: #dddddd;}</style></head>");
+            htmlFile.write("<body><table><tr><th>Review No.</th><th>Review Link</th><th>Entities</th><th>Sarcasm</th></tr>");
+
+            int reviewIndex = 0;
+            // The manager streams the input without remembering its reviews, a review listed twice is only rendered once
+            Set<String> renderedReviews = new HashSet<>();
+            SummaryRecord review;
+            while ((review = summary.nextRecord()) != null) {
+                if (!renderedReviews.add(review.getReviewId())) {
+                    continue;
+                }
+                String entities = review.getEntities();
+
+                htmlFile.write("<tr><td>");
+                htmlFile.write(Integer.toString(++reviewIndex));
+                htmlFile.write("</td><td><a href=\"");
+                htmlFile.write(review.getLink());
+                htmlFile.write("\" style=\"color:");
+                htmlFile.write(getColorCode(review.getSentiment()));
+                htmlFile.write("\">Review Link</a><br></td><td>");
+                if (!entities.isEmpty()) {
+                    htmlFile.write("[");
+                    htmlFile.write(entities);
+                    htmlFile.write("]");
+                }
+                htmlFile.write("</td><td>");
+                htmlFile.write(isSarcasticReview(review.getRating()) ? "Yes" : "No");
+                htmlFile.write("</td></tr>");
             }
-            FileWriter htmlFile = new FileWriter(outputFilePath);
-            htmlFile.write(htmlContent.toString());
-            htmlFile.close();
 
+            htmlFile.write("</table></body></html>");
+
+            logger.info("Added " + reviewIndex + " reviews to summary");
             logger.info("Created summary HTML file at " + outputFilePath);
 
         } catch (Exception e) {
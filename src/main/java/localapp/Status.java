@@ -0,0 +1,63 @@
+package localapp;
+
+import aws.AWS;
+import static aws.AWSConfig.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// sarcasm-analysis status: queue depths read live from SQS and the job progress last published by the manager
+public class Status {
+    private static final AWS aws = AWS.getInstance();
+
+    public static void main(String[] args) {
+        System.out.println("Queues (waiting + in flight)");
+        for (String queueName : Arrays.asList(LOCAL_TO_MANAGER_QUEUE_NAME, MANAGER_TO_WORKER_QUEUE_NAME, WORKER_TO_MANAGER_QUEUE_NAME)) {
+            String depth;
+            try {
+                depth = String.valueOf(aws.sqs.getQueueDepth(aws.sqs.getQueueUrl(queueName)));
+            } catch (QueueDoesNotExistException e) {
+                depth = "not created";
+            } catch (Exception e) {
+                depth = "unavailable: " + e.getMessage();
+            }
+            System.out.printf("  %-24s %s%n", queueName, depth);
+        }
+
+        JSONObject status;
+        try (InputStream content = aws.s3.downloadObjectFromS3(BUCKET_NAME, STATUS_KEY);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            status = new JSONObject(reader.lines().collect(Collectors.joining("\n")));
+        } catch (NoSuchKeyException | NoSuchBucketException e) {
+            System.out.println("No status published, the manager is not running");
+            return;
+        } catch (Exception e) {
+            System.out.println("Manager status unavailable: " + e.getMessage());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        System.out.printf("Manager status as of %d s ago%s%n", (now - status.getLong("time")) / 1000,
+                status.getBoolean("terminating") ? ", terminating" : "");
+        System.out.printf("Workers: %d active, %d ready%n", status.getInt("workers"), status.getInt("readyWorkers"));
+
+        JSONArray jobs = status.getJSONArray("jobs");
+        System.out.println("Jobs: " + jobs.length());
+        for (int i = 0; i < jobs.length(); i++) {
+            JSONObject job = jobs.getJSONObject(i);
+            int tasksSent = job.getInt("tasksSent"), tasksCompleted = job.getInt("tasksCompleted");
+            System.out.printf("  %s input %s: %d reviews, %d/%d tasks completed, %d in flight, %d packed, running for %d s%n",
+                    job.getString("localAppId"), job.getString("inputIndex"), job.getInt("reviews"),
+                    tasksCompleted, tasksSent, tasksSent - tasksCompleted, job.getInt("tasksPacked"),
+                    (now - job.getLong("startTime")) / 1000);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package localapp;
+
+import messages.SummaryRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// Reads the summary one record at a time
+public class SummaryReader implements Closeable {
+    private final Reader reader;
+    private boolean headerRead = false;
+
+    public SummaryReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Next record, or null at the end of the summary
+    public SummaryRecord nextRecord() throws IOException {
+        if (!headerRead) {
+            SummaryRecord.readHeader(reader);
+            headerRead = true;
+        }
+        return SummaryRecord.read(reader);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,284 @@
+package manager;
+
+import static aws.AWSConfig.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs the jobs on a bounded number of threads and decides which job sends the next batch of tasks.
+// A job holds its thread only while it sends its tasks, the responses are summarized by the ResponseDispatcher.
+// Only MAX_TASKS_IN_FLIGHT tasks are sent and not yet answered at a time, so the managerToWorker queue stays short
+// and a new job waits for a few batches instead of every task queued before it. Batches are picked with
+// deficit round-robin weighted by the job priority. Jobs with a deadline go first, earliest deadline first, but
+// only for MAX_DEADLINE_BATCHES_IN_A_ROW batches before the round-robin picks one.
+public class JobScheduler {
+    private final Map<String, JobQueue> jobs = new HashMap<>(); // registered jobs by job key, guarded by this
+    private final Deque<JobQueue> activeJobs = new ArrayDeque<>(); // jobs with pending batches, guarded by this
+    private int tasksInFlight = 0; // guarded by this
+    private int deadlineBatchesInARow = 0; // guarded by this
+    private volatile boolean running = true;
+    private final List<Thread> senders = new ArrayList<>();
+    private final ThreadPoolExecutor jobExecutor = new ThreadPoolExecutor(MAX_ACTIVE_JOBS, MAX_ACTIVE_JOBS,
+            60, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+    private final AtomicLong jobsSubmitted = new AtomicLong();
+    private final Logger logger = LogManager.getLogger(JobScheduler.class);
+
+    public JobScheduler() {
+        jobExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static class JobQueue {
+        private final String jobKey;
+        private final int weight;
+        private final long deadline;
+        private final Deque<PendingBatch> batches = new ArrayDeque<>();
+        private int deficit = 0;
+        private int tasksInFlight = 0;
+
+        private JobQueue(String jobKey, int weight, long deadline) {
+            this.jobKey = jobKey;
+            this.weight = weight;
+            this.deadline = deadline;
+        }
+    }
+
+    private static class PendingBatch {
+        private final JobQueue job;
+        private final int tasks;
+        private final FutureTask<Integer> send;
+
+        private PendingBatch(JobQueue job, int tasks, FutureTask<Integer> send) {
+            this.job = job;
+            this.tasks = tasks;
+            this.send = send;
+        }
+    }
+
+    // Waiting jobs start in arrival order, a deadline and every priority level above 1 move a job
+    // WAITING_JOB_HEAD_START ahead. A job that waited longer than that starts before any job that arrived after it.
+    private static class QueuedJob implements Runnable, Comparable<QueuedJob> {
+        private final ManagerTask job;
+        private final long sequence;
+        private final long startRank; // milliseconds
+
+        private QueuedJob(ManagerTask job, long sequence) {
+            this.job = job;
+            this.sequence = sequence;
+            int headStarts = Math.max(0, job.getPriority() - 1) + (job.getDeadline() > 0 ? 1 : 0);
+            this.startRank = System.currentTimeMillis() - headStarts * WAITING_JOB_HEAD_START * 1000L;
+        }
+
+        @Override
+        public void run() {
+            job.run();
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            if (startRank != other.startRank) {
+                return Long.compare(startRank, other.startRank);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public void start() {
+        for (int i = 0; i < TASK_SENDER_THREADS; i++) {
+            Thread sender = new Thread(this::sendBatches, "task-sender-" + i);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+    }
+
+    // Stops accepting jobs, running and waiting jobs still finish
+    public void shutdown() {
+        jobExecutor.shutdown();
+    }
+
+    // True once no job runs or waits for the responses to its tasks
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        if (!jobExecutor.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        synchronized (this) {
+            while (!jobs.isEmpty()) {
+                long remaining = end - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    // Called once the jobs finished
+    public synchronized void stop() {
+        running = false;
+        notifyAll();
+    }
+
+    // At most MAX_ACTIVE_JOBS jobs send their tasks at a time, the others wait for one of them to finish sending
+    public void execute(ManagerTask job) {
+        jobExecutor.execute(new QueuedJob(job, jobsSubmitted.getAndIncrement()));
+    }
+
+    public synchronized void registerJob(String jobKey, int priority, long deadline) {
+        jobs.put(jobKey, new JobQueue(jobKey, Math.max(1, priority), deadline));
+    }
+
+    // Pending batches are cancelled and the tasks still in flight stop counting against the limit
+    public synchronized void unregisterJob(String jobKey) {
+        JobQueue job = jobs.remove(jobKey);
+        if (job == null) {
+            return;
+        }
+        for (PendingBatch batch : job.batches) {
+            batch.send.cancel(false);
+        }
+        job.batches.clear();
+        activeJobs.remove(job);
+        tasksInFlight -= job.tasksInFlight;
+        job.tasksInFlight = 0;
+        notifyAll();
+    }
+
+    // The future completes with the number of tasks sent once the batch's turn comes and it is sent
+    public synchronized Future<Integer> submitBatch(String jobKey, int tasks, Callable<Integer> send) {
+        FutureTask<Integer> batchSend = new FutureTask<>(send);
+        JobQueue job = jobs.get(jobKey);
+        if (job == null) {
+            batchSend.cancel(false);
+            return batchSend;
+        }
+        if (job.batches.isEmpty()) {
+            activeJobs.addLast(job);
+        }
+        job.batches.addLast(new PendingBatch(job, tasks, batchSend));
+        notifyAll();
+        return batchSend;
+    }
+
+    // Called by the ResponseDispatcher for every response, duplicates never release more than the job has in flight
+    public synchronized void taskAnswered(String jobKey) {
+        JobQueue job = jobs.get(jobKey);
+        if (job == null || job.tasksInFlight == 0) {
+            return;
+        }
+        job.tasksInFlight--;
+        tasksInFlight--;
+        notifyAll();
+    }
+
+    public synchronized int getTasksInFlight() {
+        return tasksInFlight;
+    }
+
+    public int getQueuedJobs() {
+        return jobExecutor.getQueue().size();
+    }
+
+    public int getRunningJobs() {
+        return jobExecutor.getActiveCount();
+    }
+
+    private void sendBatches() {
+        while (running) {
+            // A failing batch must not take the sender thread down with it
+            try {
+                PendingBatch batch;
+                synchronized (this) {
+                    batch = nextBatch();
+                    if (batch == null) {
+                        wait();
+                        continue;
+                    }
+                    batch.job.tasksInFlight += batch.tasks;
+                    tasksInFlight += batch.tasks;
+                }
+
+                batch.send.run();
+                int tasksNotSent = batch.tasks;
+                try {
+                    tasksNotSent -= batch.send.get();
+                } catch (ExecutionException e) {
+                    logger.error("Error sending tasks of job " + batch.job.jobKey + ": " + e.getMessage());
+                }
+                if (tasksNotSent > 0) {
+                    synchronized (this) {
+                        // Unless the job was unregistered meanwhile
+                        if (jobs.get(batch.job.jobKey) == batch.job) {
+                            batch.job.tasksInFlight -= tasksNotSent;
+                            tasksInFlight -= tasksNotSent;
+                            notifyAll();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error sending tasks: " + e.getMessage());
+            }
+        }
+    }
+
+    // Guarded by this. Null if there is nothing to send or no room in flight.
+    private PendingBatch nextBatch() {
+        if (activeJobs.isEmpty()) {
+            return null;
+        }
+        // Jobs with a deadline are preferred for a few batches, then the round-robin gives the others their turn
+        JobQueue job = deadlineBatchesInARow < MAX_DEADLINE_BATCHES_IN_A_ROW ? earliestDeadline() : null;
+        boolean byDeadline = job != null;
+        if (job == null) {
+            // Deficit round-robin, the quantum covers a full batch so every job sends within one round
+            while (true) {
+                job = activeJobs.peekFirst();
+                if (job.deficit >= job.batches.peekFirst().tasks) {
+                    break;
+                }
+                job.deficit += SCHEDULER_QUANTUM * job.weight;
+                activeJobs.addLast(activeJobs.pollFirst());
+            }
+        }
+
+        PendingBatch batch = job.batches.peekFirst();
+        // A batch larger than the limit is still sent once nothing else is in flight
+        if (tasksInFlight > 0 && tasksInFlight + batch.tasks > MAX_TASKS_IN_FLIGHT) {
+            return null;
+        }
+        job.batches.pollFirst();
+        deadlineBatchesInARow = byDeadline ? deadlineBatchesInARow + 1 : 0;
+        job.deficit = Math.max(0, job.deficit - batch.tasks);
+        if (job.batches.isEmpty()) {
+            activeJobs.remove(job);
+            job.deficit = 0;
+        }
+        return batch;
+    }
+
+    private JobQueue earliestDeadline() {
+        JobQueue earliest = null;
+        for (JobQueue job : activeJobs) {
+            if (job.deadline > 0 && (earliest == null || job.deadline < earliest.deadline)) {
+                earliest = job;
+            }
+        }
+        return earliest;
+    }
+}
@@ -4,9 +4,14 @@ import aws.AWS;
 import static aws.AWSConfig.*;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
+import messages.LocalAppRequest;
+import messages.LocalAppResponse;
+import metrics.MetricsRegistry;
+import metrics.MetricsServer;
 import software.amazon.awssdk.services.sqs.model.Message;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -22,13 +27,29 @@ public class Manager {
         aws.sqs.createQueueIfNotExist(MANAGER_TO_WORKER_QUEUE_NAME);
         aws.sqs.createQueueIfNotExist(WORKER_TO_MANAGER_QUEUE_NAME);
 
+        env.jobScheduler.start();
+        env.responseDispatcher.start();
+        env.workerAutoscaler.start();
+        env.statusPublisher.start();
+        registerManagerMetrics();
+        MetricsServer.start();
+
         handleRequestsFromLocalApps(aws.sqs.getQueueUrl(LOCAL_TO_MANAGER_QUEUE_NAME));
 
-        waitForExecutorToFinish(); // Wait for all tasks to finish summary responses
+        waitForJobsToFinish(); // Wait for all tasks to finish summary responses
+        env.jobScheduler.stop();
+        env.sendersExecutor.shutdown();
+        env.responseDispatcher.stop();
+        env.workerAutoscaler.stop();
+        env.statusPublisher.stop();
+        aws.sqs.flushAcknowledgements();
 
         aws.ec2.terminateAllWorkers();
 
-        aws.sqs.deleteAllQueues();
+        // Response queues are deleted by their local apps once they read the last response
+        for (String queueName : Arrays.asList(LOCAL_TO_MANAGER_QUEUE_NAME, MANAGER_TO_WORKER_QUEUE_NAME, WORKER_TO_MANAGER_QUEUE_NAME)) {
+            aws.sqs.deleteQueue(aws.sqs.getQueueUrl(queueName));
+        }
         aws.s3.emptyS3Bucket(BUCKET_NAME);
         aws.s3.deleteS3Bucket(BUCKET_NAME);
 
@@ -37,6 +58,20 @@ public class Manager {
         logger.info("Manager finished");
     }
 
+    private static void registerManagerMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("manager_jobs_running", "Jobs being sent to or answered by the workers", () -> env.jobs.size());
+        metrics.gauge("manager_jobs_queued", "Jobs waiting for one of the MAX_ACTIVE_JOBS job threads", () -> env.jobScheduler.getQueuedJobs());
+        metrics.gauge("manager_scheduler_tasks_in_flight", "Tasks sent to the workers and not answered yet, across all jobs",
+                () -> env.jobScheduler.getTasksInFlight());
+        metrics.gauge(MetricsRegistry.name("manager_workers", "state", "active"), "Workers in the fleet by state",
+                () -> env.workerAutoscaler.getFleetSize());
+        metrics.gauge(MetricsRegistry.name("manager_workers", "state", "ready"), "Workers in the fleet by state",
+                () -> env.workerAutoscaler.getReadyWorkers());
+        metrics.gauge("manager_worker_queue_depth", "Tasks waiting or in flight in the managerToWorker queue",
+                () -> env.workerAutoscaler.getQueueDepth());
+    }
+
     private static void handleRequestsFromLocalApps(String localToManagerQueueUrl) {
         while (!env.isTerminated) {
             try {
@@ -58,12 +93,9 @@ public class Manager {
 
     private static void handleQueueTasks(List<Message> requests, String queueUrl) throws IOException {
         for (Message request : requests) {
-            String requestBody = request.body();
-            logger.info("Received request: " + requestBody);
-
-            // <local_app_id>::<task_type>::<input_file>::<input_index>::<reviews_per_worker>
-            String[] requestContent = requestBody.split(MESSAGE_DELIMITER);
-            String localAppId = requestContent[0], requestType = requestContent[1];
+            LocalAppRequest localAppRequest = LocalAppRequest.decode(request.body());
+            String localAppId = localAppRequest.getLocalAppId(), requestType = localAppRequest.getType();
+            logger.info("Received " + requestType + " request from local app " + localAppId);
 
             if (requestType.equals(TERMINATE_TASK)) {
                 logger.info("Termination request received from local app " + localAppId);
@@ -74,17 +106,28 @@ public class Manager {
                 continue;
             }
 
-            String inputFileName = requestContent[2], inputIndex = requestContent[3];
-            int reviewsPerWorker = Integer.parseInt(requestContent[4]);
+            String inputFileName = localAppRequest.getInputFileName(), inputIndex = localAppRequest.getInputIndex();
+            int reviewsPerWorker = localAppRequest.getReviewsPerWorker();
 
             if (env.isTerminated && !localAppId.equals(env.terminatingLocalAppId)) {
                 logger.info("Ignoring request from local app " + localAppId + " because manager is terminating");
                 aws.sqs.deleteMessage(queueUrl, request);
 
-                // <local_app_id>::error::<>::<input_index>::<error_message>
-                aws.sqs.sendMessage(MANAGER_TO_LOCAL_QUEUE_NAME,
-                        String.join(MESSAGE_DELIMITER, localAppId, RESPONSE_STATUS_ERROR,
-                                "", inputIndex, "Manager is terminating"));
+                env.sendResponseToLocalApp(localAppId,
+                        LocalAppResponse.error(localAppId, inputIndex, "Manager is terminating").encode());
+                continue;
+            }
+
+            if (STREAM_REQUESTS) {
+                // The task parses the input file itself and assigns workers as the reviews are read
+                env.jobScheduler.execute(new ManagerTask(
+                        localAppId,
+                        inputIndex,
+                        inputFileName,
+                        reviewsPerWorker,
+                        localAppRequest.getPriority(),
+                        localAppRequest.getDeadline()));
+                aws.sqs.deleteMessage(queueUrl, request);
                 continue;
             }
 
@@ -93,24 +136,25 @@ public class Manager {
                 logger.error("Error parsing input file " + inputFileName);
                 aws.sqs.deleteMessage(queueUrl, request);
 
-                // <local_app_id>::error::<>::<input_index>::<error_message>
-                aws.sqs.sendMessage(MANAGER_TO_LOCAL_QUEUE_NAME,
-                        String.join(MESSAGE_DELIMITER, localAppId, RESPONSE_STATUS_ERROR,
-                                "", inputIndex, "Error parsing input file " + inputFileName));
+                env.sendResponseToLocalApp(localAppId,
+                        LocalAppResponse.error(localAppId, inputIndex, "Error parsing input file " + inputFileName).encode());
                 continue;
             }
 
             logger.info("Parsed " + requestReviews.size() + " reviews from input file " + inputFileName);
 
-            int workersNeeded = (int) Math.ceil((double) 2 * requestReviews.size() / reviewsPerWorker);
+            int workersNeeded = (int) Math.ceil((double) requestReviews.size() / reviewsPerWorker);
             int workersCreated = env.assignWorkers(workersNeeded);
 
             // Task for each input file, to send tasks to workers, receive responses and handle summary
-            env.executor.execute(new ManagerTask(
+            env.jobScheduler.execute(new ManagerTask(
                     localAppId,
                     inputIndex,
                     requestReviews,
-                    workersCreated));
+                    reviewsPerWorker,
+                    workersCreated,
+                    localAppRequest.getPriority(),
+                    localAppRequest.getDeadline()));
 
             // No longer needed
             aws.s3.deleteObjectFromS3(BUCKET_NAME,
@@ -129,12 +173,12 @@ public class Manager {
         return RequestParser.parseRequest(inputFile);
     }
 
-    private static void waitForExecutorToFinish() {
-        env.executor.shutdown();
+    private static void waitForJobsToFinish() {
+        env.jobScheduler.shutdown();
         while (true) {
             try {
-                if (env.executor.awaitTermination(1, TimeUnit.SECONDS)) {
-                    logger.info("Executor finished");
+                if (env.jobScheduler.awaitTermination(1, TimeUnit.SECONDS)) {
+                    logger.info("Jobs finished");
                     break;
                 }
             } catch (InterruptedException e) {
@@ -4,6 +4,9 @@ import aws.AWS;
 import static aws.AWSConfig.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 public class ManagerEnv {
@@ -14,35 +17,33 @@ public class ManagerEnv {
     }
     public boolean isTerminated = false;
     public String terminatingLocalAppId = "";
-    public static int workers = 0;
-    public ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    public final JobScheduler jobScheduler = new JobScheduler(); // runs the jobs and sends their tasks
+    public final ResponseDispatcher responseDispatcher = new ResponseDispatcher(jobScheduler);
+    public final WorkerAutoscaler workerAutoscaler = new WorkerAutoscaler();
+    public final StatusPublisher statusPublisher = new StatusPublisher();
+    public ThreadPoolExecutor sendersExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(TASK_SENDER_THREADS); // shard and summary uploads
+    private final Map<String, String> localAppsQueuesUrls = new ConcurrentHashMap<>();
+    public final Map<String, ManagerTask> jobs = new ConcurrentHashMap<>(); // running jobs by job key, for the status
     private static final Logger logger = LogManager.getLogger(ManagerEnv.class);
 
+    // Workers are launched and terminated by the autoscaler, jobs only tell it how many they would use
     public int assignWorkers(int workersNeeded) {
-        logger.info("Assigning workers");
-
-        int activeWorkers = aws.ec2.countActiveWorkers();
-        int remainingWorkersCapacity = MAXIMUM_WORKER_INSTANCES - activeWorkers;
-        int workersToCreate = 0;
-
-        if (remainingWorkersCapacity > 0) {
-            workersToCreate = Math.min(workersNeeded, remainingWorkersCapacity);
-            for (int i = 0; i < workersToCreate; i++) {
-                aws.ec2.createWorkerInstance();
-            }
-            workers += workersToCreate;
-        }
-        return workersToCreate;
+        workerAutoscaler.requestWorkers(workersNeeded);
+        return workersNeeded;
     }
 
     public void releaseWorkers(int workersToRelease) {
-        logger.info("Releasing workers");
+        workerAutoscaler.releaseWorkers(workersToRelease);
+    }
 
-        int activeWorkers = aws.ec2.countActiveWorkers();
-        for (int i = 0; i < Math.min(workersToRelease, activeWorkers); i++) {
-            aws.ec2.terminateWorkerInstance();
+    public void sendResponseToLocalApp(String localAppId, String response) {
+        try {
+            String queueUrl = localAppsQueuesUrls.computeIfAbsent(localAppId,
+                    id -> aws.sqs.getQueueUrl(aws.sqs.getLocalAppQueueName(id)));
+            aws.sqs.sendMessage(queueUrl, response);
+        } catch (QueueDoesNotExistException e) {
+            logger.error("Response queue of local app " + localAppId + " does not exist");
         }
-        workers -= workersToRelease;
     }
 
 }
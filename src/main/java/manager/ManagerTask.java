@@ -4,150 +4,574 @@ import aws.AWS;
 import static aws.AWSConfig.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import software.amazon.awssdk.services.sqs.model.Message;
-import java.util.HashMap;
+import messages.LocalAppResponse;
+import messages.ReviewResult;
+import messages.SummaryRecord;
+import messages.TaskReview;
+import messages.WorkerResponse;
+import messages.WorkerTask;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class ManagerTask implements Runnable {
+    private static final Review END_OF_REQUEST = new Review(null, null, null, null, 0, null, null);
     private final AWS aws = AWS.getInstance();
     private final ManagerEnv env = ManagerEnv.getInstance();
     private final String localAppId;
     private final String inputIndex;
-    private final Map<String, Review> requestReviews;
-    private int tasksSent = 0;
-    private int tasksCompleted = 0;
-    private final Map<String, String> reviewsSentiment;
-    private final Map<String, String> reviewsEntities;
-    private final StringBuilder summaryMessage;
+    private final String inputFileName; // streamed and parsed by the task, null if the reviews were already parsed
+    private Map<String, Review> parsedReviews; // reviews parsed by the manager, dropped once packed
+    // Read by the metrics and the status publisher while the task runs
+    private volatile int tasksSent = 0;
+    private volatile int tasksCompleted = 0;
+    private volatile int tasksPacked = 0;
+    private volatile int reviewsParsed = 0;
+    private long startTime;
+    private long jobStart; // nanoseconds, for the job time metric
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final Histogram jobTime = metrics.histogram("manager_job_seconds", "Time from receiving a request to sending its summary");
+    private final Counter tasksSentTotal = metrics.counter("manager_tasks_sent_total", "Tasks sent to the workers");
+    private final Counter tasksCompletedTotal = metrics.counter("manager_tasks_completed_total", "Tasks answered by the workers");
+    private final int reviewsPerWorker;
+    private final int reviewsPerTask;
+    private final int priority; // weight of the job in the scheduler
+    private final long deadline; // epoch milliseconds, 0 if none
+    private final String jobKey;
+    // Answered tasks, kept only from the first task still unanswered on so they do not grow with the job
+    private int firstUnansweredTask = 0;
+    private BitSet answeredTasks = new BitSet(); // by task id - firstUnansweredTask
+    private final List<String> shardsKeys = new ArrayList<>();
+    private SummaryWriter summaryWriter;
+    private final BlockingQueue<String> jobResponses = new LinkedBlockingQueue<>(); // filled by the ResponseDispatcher
+    // Set once every task was sent. The job thread is then released and the responses are summarized by the
+    // dispatcher threads that deliver them, until the last one ends the job.
+    private volatile boolean awaitingResponses = false;
+    private boolean finished = false; // guarded by this
     private final Logger logger = LogManager.getLogger(ManagerTask.class);
-    private final int workersToRelease;
-
-    public ManagerTask(String localAppId, String inputIndex, Map<String, Review> requestReviews, int workersToRelease) {
+    private int workersToRelease;
+
+    // Packing state, tasks are handed to the senders as soon as a batch is ready
+    private String managerToWorkerQueueUrl;
+    private final List<TaskReview> taskReviews = new ArrayList<>();
+    private int taskSize = 0;
+    private final ByteArrayOutputStream shard = new ByteArrayOutputStream();
+    private final List<String> pendingTasks = new ArrayList<>();
+    private final Deque<Future<Integer>> batchesSent = new ArrayDeque<>();
+    private volatile String parseError = null;
+    private String sendError = null; // a batch could not be sent, the job ends with an error
+    private String summaryError = null;
+
+    public ManagerTask(String localAppId, String inputIndex, Map<String, Review> requestReviews, int reviewsPerWorker, int workersToRelease,
+                       int priority, long deadline) {
         this.localAppId = localAppId;
         this.inputIndex = inputIndex;
-        this.requestReviews = requestReviews;
-        this.reviewsSentiment = new HashMap<>();
-        this.reviewsEntities = new HashMap<>();
-        this.summaryMessage = new StringBuilder();
+        this.jobKey = ResponseDispatcher.getJobKey(localAppId, inputIndex);
+        this.priority = priority;
+        this.deadline = deadline;
+        this.inputFileName = null;
+        this.parsedReviews = requestReviews;
+        this.reviewsParsed = requestReviews.size();
+        this.reviewsPerWorker = reviewsPerWorker;
+        this.reviewsPerTask = Math.min(reviewsPerWorker, MAX_REVIEWS_PER_TASK);
         this.workersToRelease = workersToRelease;
     }
 
+    public ManagerTask(String localAppId, String inputIndex, String inputFileName, int reviewsPerWorker, int priority, long deadline) {
+        this.localAppId = localAppId;
+        this.inputIndex = inputIndex;
+        this.jobKey = ResponseDispatcher.getJobKey(localAppId, inputIndex);
+        this.priority = priority;
+        this.deadline = deadline;
+        this.inputFileName = inputFileName;
+        this.reviewsPerWorker = reviewsPerWorker;
+        this.reviewsPerTask = Math.min(reviewsPerWorker, MAX_REVIEWS_PER_TASK);
+        this.workersToRelease = 0;
+    }
+
+
+    public String getLocalAppId() {
+        return localAppId;
+    }
+
+    public String getInputIndex() {
+        return inputIndex;
+    }
+
+    public int getReviewsParsed() {
+        return reviewsParsed;
+    }
+
+    public int getTasksPacked() {
+        return tasksPacked;
+    }
+
+    public int getTasksSent() {
+        return tasksSent;
+    }
+
+    public int getTasksCompleted() {
+        return tasksCompleted;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
 
     @Override
     public void run() {
         logger.info("ManagerTask started for local app " + localAppId + " for inputIndex " + inputIndex);
 
-        sendTasksToWorkers();
+        startTime = System.currentTimeMillis();
+        env.jobs.put(jobKey, this);
+        metrics.gauge(inFlightMetric(), "Tasks sent to the workers and not answered yet, by job",
+                () -> tasksSent - tasksCompleted);
+        boolean sent = false;
+        try {
+            sent = sendTasks();
+        } finally {
+            if (!sent) {
+                endJob();
+            }
+        }
+        if (sent) {
+            logger.info("Waiting for responses from workers for local app " + localAppId + " for inputIndex " + inputIndex);
+            awaitingResponses = true;
+            // Responses that arrived before the flag was set, or the job's last response if it already came
+            handleResponses();
+        }
+    }
 
-        logger.info("Sent tasks to workers for local app " + localAppId + " for inputIndex " + inputIndex);
+    // Called by the ResponseDispatcher for every response to the job's tasks
+    void responseReceived(String responseBody) {
+        jobResponses.add(responseBody);
+        if (awaitingResponses) {
+            handleResponses();
+        }
+    }
+
+    private boolean sendTasks() {
+        jobStart = System.nanoTime();
 
-        receiveResponsesFromWorkers();
+        // Register before sending so no response can arrive for an unknown job
+        env.responseDispatcher.registerJob(this);
+        env.jobScheduler.registerJob(jobKey, priority, deadline);
+        // Responses are summarized while the tasks are still being sent, they do not pile up in the job's queue
+        summaryWriter = new SummaryWriter(BUCKET_NAME, localAppId + BUCKET_KEY_DELIMITER + getSummaryFileName(),
+                env.sendersExecutor);
 
+        if (inputFileName != null) {
+            streamTasksToWorkers();
+        } else {
+            sendTasksToWorkers();
+        }
+
+        if (parseError != null || sendError != null) {
+            // A summary missing the reviews of tasks never sent must not be reported as done
+            handleJobError(parseError != null ? parseError : sendError);
+            return false;
+        }
+
+        logger.info("Sent tasks to workers for local app " + localAppId + " for inputIndex " + inputIndex);
+        return true;
+    }
+
+    private void finishJob() {
         logger.info("Received all responses from workers for local app " + localAppId + " for inputIndex " + inputIndex);
 
-        handleSummary();
+        try {
+            deleteShards();
 
-        logger.info("Finished summary for local app " + localAppId + " for inputIndex " + inputIndex);
+            handleSummary();
 
-        env.releaseWorkers(workersToRelease);
+            logger.info("Finished summary for local app " + localAppId + " for inputIndex " + inputIndex);
+
+            env.releaseWorkers(workersToRelease);
+            jobTime.recordSince(jobStart);
+        } finally {
+            endJob();
+        }
 
         logger.info("ManagerTask finished for local app " + localAppId + " for inputIndex " + inputIndex);
     }
 
+    // The scheduler goes last, the manager waits for it to have no jobs before it terminates
+    private void endJob() {
+        env.responseDispatcher.unregisterJob(localAppId, inputIndex);
+        env.jobs.remove(jobKey);
+        metrics.remove(inFlightMetric());
+        env.jobScheduler.unregisterJob(jobKey);
+    }
+
+    private String inFlightMetric() {
+        return MetricsRegistry.name("manager_job_tasks_in_flight", "job", jobKey);
+    }
+
     private void sendTasksToWorkers() {
         logger.info("Sending tasks to workers for local app " + localAppId + " for inputIndex " + inputIndex);
 
-        String managerToWorkerQueueUrl = aws.sqs.getQueueUrl(MANAGER_TO_WORKER_QUEUE_NAME);
+        managerToWorkerQueueUrl = aws.sqs.getQueueUrl(MANAGER_TO_WORKER_QUEUE_NAME);
+
+        for (Review review : parsedReviews.values()) {
+            if (sendError != null) {
+                break;
+            }
+            packReview(review);
+        }
+        parsedReviews = null;
+        finishPacking();
+    }
 
-        for (Map.Entry<String, Review> entry : requestReviews.entrySet()) {
-            String reviewId = entry.getKey();
-            String reviewText = entry.getValue().getText();
+    // Reviews are parsed line by line from the S3 stream by another thread and packed while the file is still being read
+    private void streamTasksToWorkers() {
+        logger.info("Streaming tasks to workers for local app " + localAppId + " for inputIndex " + inputIndex);
+
+        managerToWorkerQueueUrl = aws.sqs.getQueueUrl(MANAGER_TO_WORKER_QUEUE_NAME);
+        String inputFileKey = localAppId + BUCKET_KEY_DELIMITER + inputFileName;
+
+        BlockingQueue<Review> reviews = new ArrayBlockingQueue<>(INPUT_BUFFER_SIZE);
+        Thread parser = new Thread(() -> {
+            try (InputStream inputFile = aws.s3.downloadObjectFromS3(BUCKET_NAME, inputFileKey)) {
+                RequestParser.parseRequest(inputFile, reviews);
+            } catch (InterruptedException e) {
+                // Stopped by the task, the input stream is closed on the way out
+                return;
+            } catch (Exception e) {
+                parseError = "Error parsing input file " + inputFileName + ": " + e.getMessage();
+            }
+            try {
+                reviews.put(END_OF_REQUEST);
+            } catch (InterruptedException e) {
+                // Stopped by the task
+            }
+        }, "request-parser-" + jobKey);
+        parser.setDaemon(true);
+        parser.start();
+
+        try {
+            while (true) {
+                Review review;
+                try {
+                    review = reviews.take();
+                } catch (InterruptedException e) {
+                    parseError = "Interrupted while parsing input file " + inputFileName;
+                    break;
+                }
+                if (review == END_OF_REQUEST || sendError != null) {
+                    break;
+                }
+                reviewsParsed++;
+                if ((reviewsParsed - 1) % reviewsPerWorker == 0) {
+                    // Workers are assigned as the reviews are parsed, one for every reviewsPerWorker reviews
+                    workersToRelease += env.assignWorkers(1);
+                }
+                packReview(review);
+            }
+        } finally {
+            // Unless the whole file was read, the parser may be blocked on the full queue with the input stream open
+            parser.interrupt();
+            try {
+                parser.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        finishPacking();
 
-            // <local_app_id>::<input_index>::<review_id>::<review_text>::<task_type>
-            String sentimentTask = String.join(MESSAGE_DELIMITER, localAppId, inputIndex, reviewId, reviewText, SENTIMENT_ANALYSIS_TASK);
-            String entitiesTask = String.join(MESSAGE_DELIMITER, localAppId, inputIndex, reviewId, reviewText, ENTITY_RECOGNITION_TASK);
+        logger.info("Parsed " + reviewsParsed + " reviews from input file " + inputFileName);
 
-            aws.sqs.sendMessage(managerToWorkerQueueUrl, sentimentTask);
-            aws.sqs.sendMessage(managerToWorkerQueueUrl, entitiesTask);
+        // No longer needed
+        aws.s3.deleteObjectFromS3(BUCKET_NAME, inputFileKey);
+    }
 
-            tasksSent += 2;
+    private void handleJobError(String error) {
+        logger.error(error);
+        // Batches still waiting for their turn are cancelled, the ones being sent finish first
+        env.jobScheduler.unregisterJob(jobKey);
+        waitForBatchesToBeSent(0);
+        summaryWriter.abort();
+        deleteShards();
+        env.releaseWorkers(workersToRelease);
+
+        env.sendResponseToLocalApp(localAppId, LocalAppResponse.error(localAppId, inputIndex, error).encode());
+    }
 
-            logger.info("Sent tasks for reviewId " + reviewId + " for local app " + localAppId + " for inputIndex " + inputIndex);
-            logger.info("Sent total tasks " + tasksSent + " to workers for local app " + localAppId + " for inputIndex " + inputIndex);
+    private void packReview(Review review) {
+        if (USE_REVIEW_SHARDS) {
+            packShardReview(review);
+        } else {
+            packInlineReview(review);
         }
     }
 
-    private void receiveResponsesFromWorkers() {
-        logger.info("Receiving responses from workers for local app " + localAppId + " for inputIndex " + inputIndex);
+    // Packs up to reviewsPerTask reviews in each task, without exceeding the SQS message size
+    private void packInlineReview(Review review) {
+        int reviewSize = taskReviewSize(review) + review.getText().getBytes(StandardCharsets.UTF_8).length + 8;
+        if (!taskReviews.isEmpty() && (taskReviews.size() == reviewsPerTask || taskSize + reviewSize > MAX_TASK_SIZE)) {
+            closeTask();
+        }
+        taskReviews.add(TaskReview.inline(review.getId(), review.getRating(), review.getLink(), review.getText()));
+        taskSize += reviewSize;
+    }
 
-        String workerToManagerQueueUrl = aws.sqs.getQueueUrl(WORKER_TO_MANAGER_QUEUE_NAME);
+    // Writes the review texts to S3 shards once, tasks only carry the shard key and the offset and length of each review
+    private void packShardReview(Review review) {
+        byte[] reviewText = review.getText().getBytes(StandardCharsets.UTF_8);
+        if (shard.size() > 0 && shard.size() + reviewText.length > REVIEW_SHARD_SIZE) {
+            closeShard();
+        }
+        // The offset and length with their length prefixes
+        int reviewSize = taskReviewSize(review) + 32;
+        if (taskReviews.size() == reviewsPerTask || (!taskReviews.isEmpty() && taskSize + reviewSize > MAX_TASK_SIZE)) {
+            closeTask();
+            // A shard holds one batch of tasks, so the batch can be sent as soon as the shard is uploaded
+            if (pendingTasks.size() == MAX_BATCH_ENTRIES) {
+                closeShard();
+            }
+        }
+        taskReviews.add(TaskReview.inShard(review.getId(), review.getRating(), review.getLink(), shard.size(), reviewText.length));
+        taskSize += reviewSize;
+        shard.write(reviewText, 0, reviewText.length);
+    }
 
-        while (tasksCompleted < tasksSent) {
-            logger.info("Polling responses from " + WORKER_TO_MANAGER_QUEUE_NAME);
-            List<Message> responses = aws.sqs.receiveMessages(workerToManagerQueueUrl); // long polling
+    // The id, rating and link plus the length prefixes of the three fields
+    private static int taskReviewSize(Review review) {
+        return review.getId().length() + review.getLink().getBytes(StandardCharsets.UTF_8).length + 32;
+    }
 
-            for (Message response : responses) {
-                String responseBody = response.body();
-                // <local_app_id>::<input_index>::<review_id>::<task_type>::<task_result>
-                String[] responseContent = responseBody.split(MESSAGE_DELIMITER, -1);
-                String localAppId = responseContent[0], inputIndex = responseContent[1],
-                        reviewId = responseContent[2], taskType = responseContent[3], taskResult = responseContent[4];
+    private void closeTask() {
+        if (taskReviews.isEmpty()) {
+            return;
+        }
+        String taskId = String.valueOf(tasksPacked++);
+        if (USE_REVIEW_SHARDS) {
+            pendingTasks.add(new WorkerTask(localAppId, inputIndex, taskId, ANALYZE_SHARD_TASK,
+                    getShardKey(shardsKeys.size()), taskReviews).encode());
+        } else {
+            pendingTasks.add(new WorkerTask(localAppId, inputIndex, taskId, ANALYZE_TASK, "", taskReviews).encode());
+        }
+        taskReviews.clear();
+        taskSize = 0;
 
-                // Check if response is for this task
-                if (localAppId.equals(this.localAppId) && inputIndex.equals(this.inputIndex)) {
-                    logger.info("Received response for reviewId " + reviewId + " for inputIndex " + inputIndex + " for taskType " + taskType + " with taskResult " + taskResult);
+        if (!USE_REVIEW_SHARDS && pendingTasks.size() == MAX_BATCH_ENTRIES) {
+            sendPendingTasks(null, null);
+        }
+    }
 
-                    if (taskType.equals(SENTIMENT_ANALYSIS_TASK)) {
-                        reviewsSentiment.put(reviewId, taskResult);
-                    }
+    private void closeShard() {
+        closeTask();
+        if (shard.size() == 0) {
+            return;
+        }
+        String shardKey = getShardKey(shardsKeys.size());
+        shardsKeys.add(shardKey);
+        sendPendingTasks(shardKey, shard.toByteArray());
+        shard.reset();
+    }
 
-                    if (taskType.equals(ENTITY_RECOGNITION_TASK)) {
-                        reviewsEntities.put(reviewId, taskResult);
-                    }
+    private void finishPacking() {
+        if (USE_REVIEW_SHARDS) {
+            closeShard();
+        } else {
+            closeTask();
+            sendPendingTasks(null, null);
+        }
+        waitForBatchesToBeSent(0);
 
-                    if (reviewsSentiment.containsKey(reviewId) && reviewsEntities.containsKey(reviewId)) {
-                        String sentiment = reviewsSentiment.get(reviewId);
-                        String entities = reviewsEntities.get(reviewId);
-                        int reviewRating = requestReviews.get(reviewId).getRating();
-                        String reviewLink = requestReviews.get(reviewId).getLink();
+        logger.info("Sent total tasks " + tasksSent + " out of " + tasksPacked + " to workers for local app " + localAppId + " for inputIndex " + inputIndex);
+    }
 
-                        if (summaryMessage.length() > 0){
-                            summaryMessage.append(SUMMARY_DELIMITER);
-                        }
+    // Batches are sent by the scheduler when it is the job's turn, the shard their tasks refer to is uploaded meanwhile
+    private void sendPendingTasks(String shardKey, byte[] shardContent) {
+        if (pendingTasks.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        Future<?> shardUpload = shardKey == null ? null :
+                env.sendersExecutor.submit(() -> aws.s3.uploadBytesToS3(BUCKET_NAME, shardKey, shardContent));
+        batchesSent.add(env.jobScheduler.submitBatch(jobKey, batch.size(), () -> {
+            if (shardUpload != null) {
+                shardUpload.get();
+            }
+            return sendBatch(batch);
+        }));
 
-                        // ...##<review_id>::<review_rating>::<review_link>::<sentiment>::<entities>##...
-                        summaryMessage.append(String.join(MESSAGE_DELIMITER,
-                                reviewId, reviewRating + "", reviewLink, sentiment, entities));
+        // Bounded buffering between packing and sending
+        waitForBatchesToBeSent(MAX_PENDING_BATCHES);
+    }
 
-                        logger.info("Updated summary message for reviewId " + reviewId + " for inputIndex " + inputIndex + " with sentiment " + sentiment + " and entities " + entities);
-                    }
+    // A batch that cannot be fully sent fails the job. The queue service already retried the transient failures,
+    // what is left was rejected as malformed or oversized or kept failing.
+    private int sendBatch(List<String> batch) {
+        List<String> unsent = aws.sqs.sendMessageBatch(managerToWorkerQueueUrl, batch);
+        if (!unsent.isEmpty()) {
+            throw new IllegalStateException("Could not send " + unsent.size() + " of " + batch.size() + " tasks");
+        }
+        return batch.size();
+    }
 
-                    tasksCompleted++;
-                    aws.sqs.deleteMessage(workerToManagerQueueUrl, response);
-                    logger.info("Completed tasks " + tasksCompleted + " out of " + tasksSent + " for local app " + localAppId + " for inputIndex " + inputIndex);
+    private void waitForBatchesToBeSent(int maxPendingBatches) {
+        String responseBody;
+        while ((responseBody = jobResponses.poll()) != null) {
+            handleResponse(responseBody);
+        }
+        while (batchesSent.size() > maxPendingBatches) {
+            Future<Integer> batch = batchesSent.poll();
+            try {
+                // Responses to the tasks already sent are summarized meanwhile
+                while (!batch.isDone()) {
+                    responseBody = jobResponses.poll(RESPONSE_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    if (responseBody != null) {
+                        handleResponse(responseBody);
+                    }
                 }
-                else {
-                    // Put back in queue
-                    logger.info("Putting back not relevant response in workerToManager queue");
-                    aws.sqs.changeMessageVisibility(workerToManagerQueueUrl, response, RETURN_TASK_TIME);
+                int batchTasksSent = batch.get();
+                tasksSent += batchTasksSent;
+                tasksSentTotal.add(batchTasksSent);
+            } catch (CancellationException e) {
+                // The job was unregistered after an error
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                String error = "Error sending tasks to workers: " + cause.getMessage();
+                logger.error(error);
+                if (sendError == null) {
+                    sendError = error;
                 }
             }
         }
     }
 
-    private void handleSummary() {
+    private String getShardKey(int shardIndex) {
+        // <local_app_id>/<local_app_id>-shard-<input_index>-<shard_index>
+        return localAppId + BUCKET_KEY_DELIMITER + String.join(DEFAULT_DELIMITER,
+                localAppId, SHARD_FILE_INDICATOR, inputIndex, String.valueOf(shardIndex));
+    }
+
+    private void deleteShards() {
+        for (String shardKey : shardsKeys) {
+            aws.s3.deleteObjectFromS3(BUCKET_NAME, shardKey);
+        }
+    }
+
+    // Summarizes the queued responses. Once every task was sent, the response to the last one ends the job.
+    private void handleResponses() {
+        synchronized (this) {
+            String responseBody;
+            while ((responseBody = jobResponses.poll()) != null) {
+                handleResponse(responseBody);
+            }
+            if (!awaitingResponses || finished || tasksCompleted < tasksSent) {
+                return;
+            }
+            finished = true;
+        }
+        // Outside the lock, duplicates delivered meanwhile are dropped once the job is unregistered
+        finishJob();
+    }
+
+    private void handleResponse(String responseBody) {
+        WorkerResponse response = WorkerResponse.decode(responseBody);
+        String taskId = response.getTaskId(), taskType = response.getType();
+
+        logger.info("Received response for taskId " + taskId + " for inputIndex " + inputIndex + " for taskType " + taskType);
+
+        if (!markAnswered(Integer.parseInt(taskId))) {
+            // SQS may deliver a task more than once
+            logger.info("Ignoring duplicate response for taskId " + taskId + " for inputIndex " + inputIndex);
+            return;
+        }
+
+        for (ReviewResult result : response.getResults()) {
+            String reviewId = result.getReviewId(), entities = result.getEntities();
+            int sentiment = result.getSentiment();
+
+            appendToSummary(new SummaryRecord(reviewId, result.getRating(), result.getLink(), sentiment, entities));
+
+            logger.info("Updated summary message for reviewId " + reviewId + " for inputIndex " + inputIndex + " with sentiment " + sentiment + " and entities " + entities);
+        }
+
+        tasksCompleted++;
+        tasksCompletedTotal.inc();
+        logger.info("Completed tasks " + tasksCompleted + " out of " + tasksPacked + " for local app " + localAppId + " for inputIndex " + inputIndex);
+    }
+
+    // False if the task was already answered. Once every task up to one is answered, their bits are dropped.
+    private boolean markAnswered(int taskId) {
+        int offset = taskId - firstUnansweredTask;
+        if (offset < 0 || answeredTasks.get(offset)) {
+            return false;
+        }
+        answeredTasks.set(offset);
+        int answered = answeredTasks.nextClearBit(0);
+        if (answered > 0) {
+            answeredTasks = answeredTasks.get(answered, Math.max(answered, answeredTasks.length()));
+            firstUnansweredTask += answered;
+        }
+        return true;
+    }
+
+    private void appendToSummary(SummaryRecord record) {
+        if (summaryError != null) {
+            return;
+        }
+        try {
+            summaryWriter.append(record);
+        } catch (Exception e) {
+            summaryError = "Error uploading summary: " + e.getMessage();
+            logger.error(summaryError);
+        }
+    }
+
+    private String getSummaryFileName() {
         // <local_app_id>-summary-<input_index>
-        String summaryFileName = String.join(DEFAULT_DELIMITER, localAppId, SUMMARY_FILE_INDICATOR, inputIndex);
+        return String.join(DEFAULT_DELIMITER, localAppId, SUMMARY_FILE_INDICATOR, inputIndex);
+    }
 
-        aws.s3.uploadContentToS3(BUCKET_NAME,
-                localAppId + BUCKET_KEY_DELIMITER + summaryFileName,
-                summaryMessage.toString());
+    private void handleSummary() {
+        String summaryFileName = getSummaryFileName();
+
+        if (summaryError == null) {
+            try {
+                summaryWriter.close();
+            } catch (Exception e) {
+                summaryError = "Error uploading summary: " + e.getMessage();
+                logger.error(summaryError);
+            }
+        }
+
+        if (summaryError != null) {
+            summaryWriter.abort();
+            env.sendResponseToLocalApp(localAppId, LocalAppResponse.error(localAppId, inputIndex, summaryError).encode());
+            return;
+        }
 
-        // <local_app_id>::<response_status>::<summary_file_name>::<input_index>
-        String responseContent = String.join(MESSAGE_DELIMITER, localAppId, RESPONSE_STATUS_DONE, summaryFileName, inputIndex);
-        aws.sqs.sendMessage(aws.sqs.getQueueUrl(MANAGER_TO_LOCAL_QUEUE_NAME), responseContent);
+        env.sendResponseToLocalApp(localAppId, LocalAppResponse.done(localAppId, summaryFileName, inputIndex).encode());
 
         logger.info("Uploaded summary file " + summaryFileName + " to S3 and sent response to local app " + localAppId + " for inputIndex " + inputIndex);
     }
-}
\ No newline at end of file
+}
@@ -8,6 +8,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 
 public class RequestParser {
     public static Map<String, Review> parseRequest(InputStream inputFile) throws IOException {
@@ -29,4 +30,18 @@ public class RequestParser {
         return requestReviews;
     }
 
+    // Parses the request line by line, each review is handed over as soon as its line is read
+    public static void parseRequest(InputStream inputFile, BlockingQueue<Review> reviews) throws IOException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject lineJson = new JSONObject(line);
+                JSONArray reviewsJsons = lineJson.getJSONArray("reviews");
+                for (Object reviewJson : reviewsJsons) {
+                    reviews.put(Review.fromJson((JSONObject) reviewJson));
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,80 @@
+package manager;
+
+import aws.AWS;
+import static aws.AWSConfig.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import messages.MessageReader;
+import software.amazon.awssdk.services.sqs.model.Message;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Polls the workerToManager queue and routes every response to the ManagerTask that owns it. Once a job sent all
+// its tasks, the dispatcher thread also summarizes the response and ends the job with the last one.
+public class ResponseDispatcher implements Runnable {
+    private final AWS aws = AWS.getInstance();
+    private final Map<String, ManagerTask> jobs = new ConcurrentHashMap<>(); // by job key
+    private final JobScheduler jobScheduler;
+    private volatile boolean running = true;
+    private final Logger logger = LogManager.getLogger(ResponseDispatcher.class);
+
+    public ResponseDispatcher(JobScheduler jobScheduler) {
+        this.jobScheduler = jobScheduler;
+    }
+
+    public static String getJobKey(String localAppId, String inputIndex) {
+        // <local_app_id>-<input_index>
+        return String.join(DEFAULT_DELIMITER, localAppId, inputIndex);
+    }
+
+    public void registerJob(ManagerTask job) {
+        jobs.put(getJobKey(job.getLocalAppId(), job.getInputIndex()), job);
+    }
+
+    public void unregisterJob(String localAppId, String inputIndex) {
+        jobs.remove(getJobKey(localAppId, inputIndex));
+    }
+
+    public void start() {
+        for (int i = 0; i < RESPONSE_DISPATCHER_THREADS; i++) {
+            Thread dispatcher = new Thread(this, "response-dispatcher-" + i);
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        String workerToManagerQueueUrl = aws.sqs.getQueueUrl(WORKER_TO_MANAGER_QUEUE_NAME);
+
+        while (running) {
+            try {
+                List<Message> responses = aws.sqs.receiveMessages(workerToManagerQueueUrl); // long polling
+                for (Message response : responses) {
+                    String responseBody = response.body();
+                    // Only the job is read here, the task decodes the rest
+                    MessageReader responseReader = new MessageReader(responseBody);
+                    String localAppId = responseReader.readString(), inputIndex = responseReader.readString();
+                    String jobKey = getJobKey(localAppId, inputIndex);
+                    ManagerTask job = jobs.get(jobKey);
+
+                    if (job != null) {
+                        // Frees room for more tasks as soon as the response arrives, even while the job is still packing
+                        jobScheduler.taskAnswered(jobKey);
+                        job.responseReceived(responseBody);
+                    } else {
+                        logger.info("Dropping response for unknown job of local app " + localAppId + " for inputIndex " + inputIndex);
+                    }
+                    aws.sqs.acknowledgeMessage(workerToManagerQueueUrl, response);
+                }
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package manager;
+
+import aws.AWS;
+import static aws.AWSConfig.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Uploads the progress of the running jobs to STATUS_KEY every STATUS_PUBLISH_INTERVAL,
+// read by the status command without needing access to the manager instance
+public class StatusPublisher implements Runnable {
+    private final AWS aws = AWS.getInstance();
+    private final Object wakeUp = new Object();
+    private volatile boolean running = true;
+    private Thread publisher;
+    private final Logger logger = LogManager.getLogger(StatusPublisher.class);
+
+    public void start() {
+        publisher = new Thread(this, "status-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    // Wakes the publisher without interrupting an upload in progress and waits for its final status, so the
+    // status ends up complete and nothing is written to the bucket after the manager empties it
+    public void stop() {
+        synchronized (wakeUp) {
+            running = false;
+            wakeUp.notifyAll();
+        }
+        if (publisher != null) {
+            try {
+                publisher.join();
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            publish();
+            synchronized (wakeUp) {
+                if (!running) {
+                    break;
+                }
+                try {
+                    wakeUp.wait(STATUS_PUBLISH_INTERVAL * 1000L);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+        // A status taken after the jobs finished, even if stop came in the middle of an upload
+        publish();
+    }
+
+    private void publish() {
+        try {
+            aws.s3.uploadContentToS3(BUCKET_NAME, STATUS_KEY, getStatus().toString());
+        } catch (Exception e) {
+            logger.error("Error publishing status: " + e.getMessage());
+        }
+    }
+
+    public JSONObject getStatus() {
+        // Created by ManagerEnv, so the env is looked up once it exists
+        ManagerEnv env = ManagerEnv.getInstance();
+        JSONArray jobs = new JSONArray();
+        for (ManagerTask job : env.jobs.values()) {
+            jobs.put(new JSONObject()
+                    .put("localAppId", job.getLocalAppId())
+                    .put("inputIndex", job.getInputIndex())
+                    .put("startTime", job.getStartTime())
+                    .put("reviews", job.getReviewsParsed())
+                    .put("tasksPacked", job.getTasksPacked())
+                    .put("tasksSent", job.getTasksSent())
+                    .put("tasksCompleted", job.getTasksCompleted()));
+        }
+        return new JSONObject()
+                .put("time", System.currentTimeMillis())
+                .put("terminating", env.isTerminated)
+                .put("workers", env.workerAutoscaler.getFleetSize())
+                .put("readyWorkers", env.workerAutoscaler.getReadyWorkers())
+                .put("jobs", jobs);
+    }
+}
@@ -0,0 +1,100 @@
+package manager;
+
+import aws.AWS;
+import static aws.AWSConfig.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import messages.SummaryRecord;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Appends summary records to a buffer that is uploaded as a part of a multipart upload whenever it fills,
+// so a job only holds a few parts in memory and the upload overlaps with collecting the results
+public class SummaryWriter {
+    private final AWS aws = AWS.getInstance();
+    private final String bucketName;
+    private final String key;
+    private final ExecutorService executor;
+    private final ByteArrayOutputStream part = new ByteArrayOutputStream();
+    private final Deque<Future<CompletedPart>> pendingParts = new ArrayDeque<>();
+    private final List<CompletedPart> completedParts = new ArrayList<>();
+    private String uploadId = null;
+    private int partsUploaded = 0;
+    private final Histogram uploadTime = MetricsRegistry.getInstance().histogram("manager_summary_upload_seconds",
+            "Time from the last summary record to the uploaded summary");
+    private final Logger logger = LogManager.getLogger(SummaryWriter.class);
+
+    public SummaryWriter(String bucketName, String key, ExecutorService executor) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.executor = executor;
+        byte[] header = SummaryRecord.header().getBytes(StandardCharsets.UTF_8);
+        part.write(header, 0, header.length);
+    }
+
+    public void append(SummaryRecord record) throws Exception {
+        // Records are length-prefixed, so they follow each other without delimiters
+        byte[] recordBytes = record.encode().getBytes(StandardCharsets.UTF_8);
+        part.write(recordBytes, 0, recordBytes.length);
+
+        if (part.size() >= S3_PART_SIZE) {
+            uploadPart();
+        }
+    }
+
+    // Only the upload left after the last record is timed, earlier parts overlap with collecting the results
+    public void close() throws Exception {
+        long start = System.nanoTime();
+        if (uploadId == null) {
+            // Small summary, a single request is enough
+            aws.s3.uploadBytesToS3(bucketName, key, part.toByteArray());
+            part.reset();
+            uploadTime.recordSince(start);
+            return;
+        }
+        if (part.size() > 0) {
+            uploadPart();
+        }
+        waitForParts(0);
+        aws.s3.completeMultipartUpload(bucketName, key, uploadId, completedParts);
+        uploadTime.recordSince(start);
+
+        logger.info("Uploaded summary " + key + " in " + completedParts.size() + " parts");
+    }
+
+    public void abort() {
+        for (Future<CompletedPart> pendingPart : pendingParts) {
+            pendingPart.cancel(true);
+        }
+        if (uploadId != null) {
+            aws.s3.abortMultipartUpload(bucketName, key, uploadId);
+        }
+    }
+
+    private void uploadPart() throws Exception {
+        if (uploadId == null) {
+            uploadId = aws.s3.createMultipartUpload(bucketName, key);
+        }
+        byte[] content = part.toByteArray();
+        int partNumber = ++partsUploaded;
+        part.reset();
+        pendingParts.add(executor.submit(() -> aws.s3.uploadPart(bucketName, key, uploadId, partNumber, content)));
+
+        waitForParts(MAX_PENDING_SUMMARY_PARTS);
+    }
+
+    private void waitForParts(int maxPendingParts) throws Exception {
+        while (pendingParts.size() > maxPendingParts) {
+            completedParts.add(pendingParts.poll().get());
+        }
+    }
+}
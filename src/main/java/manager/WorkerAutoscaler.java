@@ -0,0 +1,218 @@
+package manager;
+
+import aws.AWS;
+import static aws.AWSConfig.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Sizes the worker fleet from the managerToWorker queue depth instead of launching and terminating per job.
+// Jobs only register how many workers they would like, workers outlive the jobs and are reused by the next ones.
+public class WorkerAutoscaler implements Runnable {
+    private final AWS aws = AWS.getInstance();
+    private final Set<String> workerIds = new LinkedHashSet<>(); // cached fleet, guarded by this
+    private final Set<String> readyWorkerIds = new HashSet<>(); // warmed up and polling, guarded by this
+    private final Map<String, Long> firstSeen = new HashMap<>(); // when each worker joined the fleet, guarded by this
+    // Launched but not reported by describeInstances yet, which is eventually consistent, guarded by this
+    private final Set<String> launchedWorkerIds = new HashSet<>();
+    private long lastFleetRefresh = 0;
+    private long oversizedSince = 0;
+    private int requestedWorkers = 0; // guarded by this
+    private boolean workersRequested = false; // a job asked for workers since the last scaling, guarded by this
+    private int launchingWorkers = 0; // guarded by this
+    private volatile int queueDepth = 0; // as of the last check
+    private final Object wakeUp = new Object();
+    private volatile boolean running = true;
+    private Thread autoscaler;
+    private final Logger logger = LogManager.getLogger(WorkerAutoscaler.class);
+
+    public synchronized void requestWorkers(int workers) {
+        requestedWorkers += workers;
+        workersRequested = true;
+        wakeUp();
+    }
+
+    public synchronized void releaseWorkers(int workers) {
+        requestedWorkers = Math.max(0, requestedWorkers - workers);
+    }
+
+    public synchronized int getFleetSize() {
+        return workerIds.size();
+    }
+
+    public synchronized int getReadyWorkers() {
+        return readyWorkerIds.size();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void start() {
+        autoscaler = new Thread(this, "worker-autoscaler");
+        autoscaler.setDaemon(true);
+        autoscaler.start();
+    }
+
+    public void stop() {
+        running = false;
+        wakeUp();
+        if (autoscaler != null) {
+            try {
+                autoscaler.join();
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage());
+            }
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (wakeUp) {
+            wakeUp.notifyAll();
+        }
+    }
+
+    @Override
+    public void run() {
+        String managerToWorkerQueueUrl = aws.sqs.getQueueUrl(MANAGER_TO_WORKER_QUEUE_NAME);
+
+        while (running) {
+            try {
+                refreshFleet();
+                scale(aws.sqs.getQueueDepth(managerToWorkerQueueUrl));
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+            }
+            synchronized (wakeUp) {
+                if (!running) {
+                    break;
+                }
+                try {
+                    wakeUp.wait(AUTOSCALER_INTERVAL * 1000L);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void refreshFleet() {
+        long now = System.currentTimeMillis();
+        if (now - lastFleetRefresh < FLEET_REFRESH_INTERVAL * 1000L) {
+            return;
+        }
+        // Drops workers that died or were terminated outside the manager
+        List<String> activeWorkerIds = aws.ec2.getActiveWorkerIds();
+        List<String> currentReadyWorkerIds = aws.ec2.getReadyWorkerIds();
+        List<String> stalledWorkerIds = new ArrayList<>();
+        synchronized (this) {
+            workerIds.clear();
+            workerIds.addAll(activeWorkerIds);
+            // Workers launched by the manager count until describeInstances reports them, so the fleet cannot
+            // be scaled up past MAXIMUM_WORKER_INSTANCES meanwhile
+            launchedWorkerIds.removeAll(activeWorkerIds);
+            workerIds.addAll(launchedWorkerIds);
+            readyWorkerIds.clear();
+            readyWorkerIds.addAll(currentReadyWorkerIds);
+            firstSeen.keySet().retainAll(workerIds);
+
+            // Workers that never got ready are replaced on the next scale up
+            for (String workerId : workerIds) {
+                long joined = firstSeen.computeIfAbsent(workerId, id -> now);
+                if (!readyWorkerIds.contains(workerId) && now - joined >= WORKER_READY_TIMEOUT * 1000L) {
+                    stalledWorkerIds.add(workerId);
+                }
+            }
+            workerIds.removeAll(stalledWorkerIds);
+            launchedWorkerIds.removeAll(stalledWorkerIds);
+            logger.info("Fleet has " + workerIds.size() + " workers, " + readyWorkerIds.size() + " ready");
+        }
+        if (!stalledWorkerIds.isEmpty()) {
+            logger.info("Replacing workers that did not get ready " + stalledWorkerIds);
+            aws.ec2.terminateEC2Instances(stalledWorkerIds);
+        }
+        lastFleetRefresh = now;
+    }
+
+    private void scale(int queueDepth) {
+        this.queueDepth = queueDepth;
+        int currentWorkers;
+        int desiredWorkers;
+        synchronized (this) {
+            currentWorkers = workerIds.size() + launchingWorkers;
+            // No more workers than tasks left, waiting or in flight. Right after a job asks for workers its tasks
+            // are not queued yet, so the request alone sizes the fleet.
+            desiredWorkers = Math.min(MAXIMUM_WORKER_INSTANCES,
+                    workersRequested ? requestedWorkers : Math.min(requestedWorkers, queueDepth));
+            workersRequested = false;
+        }
+
+        if (desiredWorkers > currentWorkers) {
+            oversizedSince = 0;
+            launchWorkers(desiredWorkers - currentWorkers);
+        } else if (desiredWorkers < currentWorkers) {
+            // Scale down only after the fleet stayed oversized for the whole idle TTL
+            long now = System.currentTimeMillis();
+            if (oversizedSince == 0) {
+                oversizedSince = now;
+            } else if (now - oversizedSince >= WORKER_IDLE_TTL * 1000L) {
+                terminateWorkers(currentWorkers - desiredWorkers);
+                oversizedSince = 0;
+            }
+        } else {
+            oversizedSince = 0;
+        }
+    }
+
+    private void launchWorkers(int workers) {
+        logger.info("Scaling up by " + workers + " workers");
+        synchronized (this) {
+            launchingWorkers += workers;
+        }
+        // All workers in one request, the control loop keeps polling while EC2 answers
+        aws.ec2.createWorkerInstancesAsync(workers).whenComplete((launchedIds, e) -> {
+            synchronized (this) {
+                launchingWorkers -= workers;
+                if (launchedIds != null) {
+                    workerIds.addAll(launchedIds);
+                    launchedWorkerIds.addAll(launchedIds);
+                    long now = System.currentTimeMillis();
+                    for (String workerId : launchedIds) {
+                        firstSeen.put(workerId, now);
+                    }
+                }
+            }
+            if (e != null) {
+                logger.error("Error launching workers: " + e.getMessage());
+            }
+        });
+    }
+
+    private void terminateWorkers(int workers) {
+        logger.info("Scaling down by " + workers + " workers");
+        List<String> workersToTerminate = new ArrayList<>();
+        synchronized (this) {
+            // Workers still warming up go first, they hold no tasks yet
+            for (String workerId : workerIds) {
+                if (workersToTerminate.size() < workers && !readyWorkerIds.contains(workerId)) {
+                    workersToTerminate.add(workerId);
+                }
+            }
+            for (String workerId : workerIds) {
+                if (workersToTerminate.size() < workers && !workersToTerminate.contains(workerId)) {
+                    workersToTerminate.add(workerId);
+                }
+            }
+            workerIds.removeAll(workersToTerminate);
+            readyWorkerIds.removeAll(workersToTerminate);
+            launchedWorkerIds.removeAll(workersToTerminate);
+        }
+        aws.ec2.terminateEC2Instances(workersToTerminate);
+    }
+}
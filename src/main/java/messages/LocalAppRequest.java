@@ -0,0 +1,86 @@
+package messages;
+
+import static aws.AWSConfig.*;
+
+// Local app -> manager: analyze an uploaded input file, or terminate the manager
+public class LocalAppRequest {
+    private final String type; // ANALYZE_TASK or TERMINATE_TASK
+    private final String localAppId;
+    private final String inputFileName;
+    private final String inputIndex;
+    private final int reviewsPerWorker;
+    private final int priority;
+    private final long deadline; // epoch milliseconds, 0 if none
+
+    private LocalAppRequest(String type, String localAppId, String inputFileName, String inputIndex, int reviewsPerWorker,
+                            int priority, long deadline) {
+        this.type = type;
+        this.localAppId = localAppId;
+        this.inputFileName = inputFileName;
+        this.inputIndex = inputIndex;
+        this.reviewsPerWorker = reviewsPerWorker;
+        this.priority = priority;
+        this.deadline = deadline;
+    }
+
+    public static LocalAppRequest analyze(String localAppId, String inputFileName, String inputIndex, int reviewsPerWorker,
+                                          int priority, long deadline) {
+        return new LocalAppRequest(ANALYZE_TASK, localAppId, inputFileName, inputIndex, reviewsPerWorker, priority, deadline);
+    }
+
+    public static LocalAppRequest terminate(String localAppId) {
+        return new LocalAppRequest(TERMINATE_TASK, localAppId, null, null, 0, DEFAULT_JOB_PRIORITY, 0);
+    }
+
+    public String encode() {
+        // <type><local_app_id>[<input_file><input_index><reviews_per_worker><priority><deadline>]
+        MessageWriter message = new MessageWriter().write(type).write(localAppId);
+        if (type.equals(ANALYZE_TASK)) {
+            message.write(inputFileName).write(inputIndex).write(reviewsPerWorker).write(priority).write(deadline);
+        }
+        return message.toString();
+    }
+
+    public static LocalAppRequest decode(String message) {
+        MessageReader reader = new MessageReader(message);
+        String type = reader.readString();
+        String localAppId = reader.readString();
+        if (type.equals(TERMINATE_TASK)) {
+            return terminate(localAppId);
+        }
+        String inputFileName = reader.readString(), inputIndex = reader.readString();
+        int reviewsPerWorker = reader.readInt();
+        // Requests of local apps without scheduling options end here
+        int priority = reader.hasNext() ? reader.readInt() : DEFAULT_JOB_PRIORITY;
+        long deadline = reader.hasNext() ? reader.readLong() : 0;
+        return new LocalAppRequest(type, localAppId, inputFileName, inputIndex, reviewsPerWorker, priority, deadline);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getLocalAppId() {
+        return localAppId;
+    }
+
+    public String getInputFileName() {
+        return inputFileName;
+    }
+
+    public String getInputIndex() {
+        return inputIndex;
+    }
+
+    public int getReviewsPerWorker() {
+        return reviewsPerWorker;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+}
@@ -0,0 +1,76 @@
+package messages;
+
+import static aws.AWSConfig.*;
+
+// Manager -> local app: the summary of an input file is ready, or the file could not be processed
+public class LocalAppResponse {
+    private final String localAppId;
+    private final String status; // RESPONSE_STATUS_DONE or RESPONSE_STATUS_ERROR
+    private final String summaryFileName;
+    private final String inputIndex;
+    private final String errorMessage;
+
+    private LocalAppResponse(String localAppId, String status, String summaryFileName, String inputIndex, String errorMessage) {
+        this.localAppId = localAppId;
+        this.status = status;
+        this.summaryFileName = summaryFileName;
+        this.inputIndex = inputIndex;
+        this.errorMessage = errorMessage;
+    }
+
+    public static LocalAppResponse done(String localAppId, String summaryFileName, String inputIndex) {
+        return new LocalAppResponse(localAppId, RESPONSE_STATUS_DONE, summaryFileName, inputIndex, "");
+    }
+
+    public static LocalAppResponse error(String localAppId, String inputIndex, String errorMessage) {
+        return new LocalAppResponse(localAppId, RESPONSE_STATUS_ERROR, "", inputIndex, errorMessage);
+    }
+
+    public String encode() {
+        // <local_app_id><status><summary_file_name><input_index><error_message>
+        return new MessageWriter()
+                .write(localAppId)
+                .write(status)
+                .write(summaryFileName)
+                .write(inputIndex)
+                .write(errorMessage)
+                .toString();
+    }
+
+    public static LocalAppResponse decode(String message) {
+        MessageReader reader = new MessageReader(message);
+        return new LocalAppResponse(reader.readString(), reader.readString(), reader.readString(),
+                reader.readString(), reader.readString());
+    }
+
+    public String getLocalAppId() {
+        return localAppId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getSummaryFileName() {
+        return summaryFileName;
+    }
+
+    public String getInputIndex() {
+        return inputIndex;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalAppResponse{" +
+                "localAppId='" + localAppId + '\'' +
+                ", status='" + status + '\'' +
+                ", summaryFileName='" + summaryFileName + '\'' +
+                ", inputIndex='" + inputIndex + '\'' +
+                ", errorMessage='" + errorMessage + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package messages;
+
+import static messages.MessageWriter.*;
+
+// Reads the fields of a MessageWriter message in order. Numbers are parsed in place and skipped fields
+// are never copied, so a reader only pays for the fields it uses.
+public class MessageReader {
+    private final String message;
+    private int position;
+
+    public MessageReader(String message) {
+        this.message = message;
+        int versionEnd = message.indexOf(VERSION_END);
+        if (versionEnd < 0) {
+            throw new IllegalArgumentException("Message without version");
+        }
+        int version = (int) parseLong(0, versionEnd);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported message version " + version);
+        }
+        position = versionEnd + 1;
+    }
+
+    private MessageReader(String message, int position) {
+        this.message = message;
+        this.position = position;
+    }
+
+    public static MessageReader withoutVersion(String fields) {
+        return new MessageReader(fields, 0);
+    }
+
+    public boolean hasNext() {
+        return position < message.length();
+    }
+
+    public String readString() {
+        int length = readLength();
+        String field = message.substring(position, position + length);
+        position += length;
+        return field;
+    }
+
+    public long readLong() {
+        int length = readLength();
+        long field = parseLong(position, position + length);
+        position += length;
+        return field;
+    }
+
+    public int readInt() {
+        return (int) readLong();
+    }
+
+    public void skip() {
+        int length = readLength();
+        position += length;
+    }
+
+    private int readLength() {
+        int lengthEnd = message.indexOf(LENGTH_END, position);
+        if (lengthEnd < 0) {
+            throw new IllegalArgumentException("Malformed message at " + position);
+        }
+        int length = (int) parseLong(position, lengthEnd);
+        if (length < 0 || lengthEnd + 1 + length > message.length()) {
+            throw new IllegalArgumentException("Malformed message at " + position);
+        }
+        position = lengthEnd + 1;
+        return length;
+    }
+
+    private long parseLong(int start, int end) {
+        if (start == end) {
+            throw new IllegalArgumentException("Malformed message at " + start);
+        }
+        boolean negative = message.charAt(start) == '-';
+        long number = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            char digit = message.charAt(i);
+            if (digit < '0' || digit > '9') {
+                throw new IllegalArgumentException("Malformed message at " + i);
+            }
+            number = number * 10 + (digit - '0');
+        }
+        return negative ? -number : number;
+    }
+}
@@ -0,0 +1,59 @@
+package messages;
+
+// Builds a message of length-prefixed fields: <version>|<length>:<field><length>:<field>...
+// Lengths count chars, so any text, including delimiters, goes through unchanged.
+public class MessageWriter {
+    public static final int VERSION = 2; // 2: tasks and responses carry the rating and link of each review
+    static final char VERSION_END = '|';
+    static final char LENGTH_END = ':';
+
+    private final StringBuilder message;
+
+    public MessageWriter() {
+        this(64);
+    }
+
+    public MessageWriter(int capacity) {
+        message = new StringBuilder(capacity);
+        message.append(VERSION).append(VERSION_END);
+    }
+
+    // Fields only, for records inside a file that carries the version once
+    private MessageWriter(StringBuilder message) {
+        this.message = message;
+    }
+
+    public static MessageWriter withoutVersion(int capacity) {
+        return new MessageWriter(new StringBuilder(capacity));
+    }
+
+    public MessageWriter write(String field) {
+        message.append(field.length()).append(LENGTH_END).append(field);
+        return this;
+    }
+
+    public MessageWriter write(long field) {
+        message.append(digits(field)).append(LENGTH_END).append(field);
+        return this;
+    }
+
+    public int length() {
+        return message.length();
+    }
+
+    @Override
+    public String toString() {
+        return message.toString();
+    }
+
+    // Chars of the decimal representation, so numbers are written without a temporary String
+    private static int digits(long number) {
+        int digits = number < 0 ? 2 : 1;
+        long remaining = Math.abs(number / 10);
+        while (remaining > 0) {
+            remaining /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,38 @@
+package messages;
+
+// Analysis of one review of a WorkerResponse, with the rating and link the task carried for the summary
+public class ReviewResult {
+    private final String reviewId;
+    private final int rating;
+    private final String link;
+    private final int sentiment;
+    private final String entities; // "<entity>: <type>, ..." as rendered in the summary
+
+    public ReviewResult(String reviewId, int rating, String link, int sentiment, String entities) {
+        this.reviewId = reviewId;
+        this.rating = rating;
+        this.link = link;
+        this.sentiment = sentiment;
+        this.entities = entities;
+    }
+
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public String getLink() {
+        return link;
+    }
+
+    public int getSentiment() {
+        return sentiment;
+    }
+
+    public String getEntities() {
+        return entities;
+    }
+}
@@ -0,0 +1,112 @@
+package messages;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+// A review of a summary file. The file starts with the message version and continues with the records' fields.
+public class SummaryRecord {
+    private final String reviewId;
+    private final int rating;
+    private final String link;
+    private final int sentiment;
+    private final String entities;
+
+    public SummaryRecord(String reviewId, int rating, String link, int sentiment, String entities) {
+        this.reviewId = reviewId;
+        this.rating = rating;
+        this.link = link;
+        this.sentiment = sentiment;
+        this.entities = entities;
+    }
+
+    public static String header() {
+        return MessageWriter.VERSION + String.valueOf(MessageWriter.VERSION_END);
+    }
+
+    // <review_id><rating><link><sentiment><entities>, without the version
+    public String encode() {
+        return MessageWriter.withoutVersion(32 + reviewId.length() + link.length() + entities.length())
+                .write(reviewId)
+                .write(rating)
+                .write(link)
+                .write(sentiment)
+                .write(entities)
+                .toString();
+    }
+
+    public static void readHeader(Reader reader) throws IOException {
+        int version = (int) readNumber(reader, reader.read(), MessageWriter.VERSION_END);
+        if (version != MessageWriter.VERSION) {
+            throw new IOException("Unsupported summary version " + version);
+        }
+    }
+
+    // Next record of a summary stream positioned after its header, or null at the end of the summary
+    public static SummaryRecord read(Reader reader) throws IOException {
+        int first = reader.read();
+        if (first == -1) {
+            return null;
+        }
+        String reviewId = readField(reader, first);
+        int rating = Integer.parseInt(readField(reader, reader.read()));
+        String link = readField(reader, reader.read());
+        int sentiment = Integer.parseInt(readField(reader, reader.read()));
+        String entities = readField(reader, reader.read());
+        return new SummaryRecord(reviewId, rating, link, sentiment, entities);
+    }
+
+    private static String readField(Reader reader, int first) throws IOException {
+        int length = (int) readNumber(reader, first, MessageWriter.LENGTH_END);
+        char[] field = new char[length];
+        int read = 0;
+        while (read < length) {
+            int n = reader.read(field, read, length - read);
+            if (n == -1) {
+                throw new EOFException("Truncated summary record");
+            }
+            read += n;
+        }
+        return new String(field);
+    }
+
+    private static long readNumber(Reader reader, int c, char end) throws IOException {
+        long number = 0;
+        int digits = 0;
+        while (c != end) {
+            if (c == -1) {
+                throw new EOFException("Truncated summary record");
+            }
+            if (c < '0' || c > '9') {
+                throw new IOException("Malformed summary record");
+            }
+            number = number * 10 + (c - '0');
+            digits++;
+            c = reader.read();
+        }
+        if (digits == 0) {
+            throw new IOException("Malformed summary record");
+        }
+        return number;
+    }
+
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public String getLink() {
+        return link;
+    }
+
+    public int getSentiment() {
+        return sentiment;
+    }
+
+    public String getEntities() {
+        return entities;
+    }
+}
@@ -0,0 +1,53 @@
+package messages;
+
+// A review of a WorkerTask, either with its text or with its place in the task's shard.
+// The rating and link are only passed back in the response, so the manager does not keep them until then.
+public class TaskReview {
+    private final String id;
+    private final int rating;
+    private final String link;
+    private final String text; // null for shard reviews
+    private final long offset; // bytes into the shard
+    private final int length; // bytes
+
+    private TaskReview(String id, int rating, String link, String text, long offset, int length) {
+        this.id = id;
+        this.rating = rating;
+        this.link = link;
+        this.text = text;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static TaskReview inline(String id, int rating, String link, String text) {
+        return new TaskReview(id, rating, link, text, 0, 0);
+    }
+
+    public static TaskReview inShard(String id, int rating, String link, long offset, int length) {
+        return new TaskReview(id, rating, link, null, offset, length);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public String getLink() {
+        return link;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,68 @@
+package messages;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Worker -> manager: the analysis of every review of a WorkerTask
+public class WorkerResponse {
+    private final String localAppId;
+    private final String inputIndex;
+    private final String taskId;
+    private final String type;
+    private final List<ReviewResult> results;
+
+    public WorkerResponse(String localAppId, String inputIndex, String taskId, String type, List<ReviewResult> results) {
+        this.localAppId = localAppId;
+        this.inputIndex = inputIndex;
+        this.taskId = taskId;
+        this.type = type;
+        this.results = results;
+    }
+
+    public String encode() {
+        // <local_app_id><input_index><task_id><type> then <review_id><rating><link><sentiment><entities> per review
+        MessageWriter message = new MessageWriter(64 + 128 * results.size())
+                .write(localAppId)
+                .write(inputIndex)
+                .write(taskId)
+                .write(type);
+        for (ReviewResult result : results) {
+            message.write(result.getReviewId()).write(result.getRating()).write(result.getLink())
+                    .write(result.getSentiment()).write(result.getEntities());
+        }
+        return message.toString();
+    }
+
+    public static WorkerResponse decode(String message) {
+        MessageReader reader = new MessageReader(message);
+        String localAppId = reader.readString(), inputIndex = reader.readString(),
+                taskId = reader.readString(), type = reader.readString();
+
+        List<ReviewResult> results = new ArrayList<>();
+        while (reader.hasNext()) {
+            results.add(new ReviewResult(reader.readString(), reader.readInt(), reader.readString(),
+                    reader.readInt(), reader.readString()));
+        }
+        return new WorkerResponse(localAppId, inputIndex, taskId, type, results);
+    }
+
+    public String getLocalAppId() {
+        return localAppId;
+    }
+
+    public String getInputIndex() {
+        return inputIndex;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<ReviewResult> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,104 @@
+package messages;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static aws.AWSConfig.*;
+
+// Manager -> worker: a batch of reviews to analyze, inline (ANALYZE_TASK) or stored in a shard (ANALYZE_SHARD_TASK)
+public class WorkerTask {
+    private final String localAppId;
+    private final String inputIndex;
+    private final String taskId;
+    private final String type;
+    private final String shardKey; // empty for inline tasks
+    private final List<TaskReview> reviews;
+
+    public WorkerTask(String localAppId, String inputIndex, String taskId, String type, String shardKey, List<TaskReview> reviews) {
+        this.localAppId = localAppId;
+        this.inputIndex = inputIndex;
+        this.taskId = taskId;
+        this.type = type;
+        this.shardKey = shardKey;
+        this.reviews = reviews;
+    }
+
+    public String encode() {
+        // <local_app_id><input_index><task_id><type><shard_key> then per review <review_id><rating><link>
+        // followed by <review_text>, or by <offset><length> for shard tasks
+        MessageWriter message = new MessageWriter(encodedSizeHint())
+                .write(localAppId)
+                .write(inputIndex)
+                .write(taskId)
+                .write(type)
+                .write(shardKey);
+        for (TaskReview review : reviews) {
+            message.write(review.getId()).write(review.getRating()).write(review.getLink());
+            if (type.equals(ANALYZE_SHARD_TASK)) {
+                message.write(review.getOffset()).write(review.getLength());
+            } else {
+                message.write(review.getText());
+            }
+        }
+        return message.toString();
+    }
+
+    private int encodedSizeHint() {
+        int size = 64 + shardKey.length();
+        for (TaskReview review : reviews) {
+            size += 32 + review.getLink().length() + (review.getText() == null ? 0 : review.getText().length());
+        }
+        return size;
+    }
+
+    public static WorkerTask decode(String message) {
+        MessageReader reader = new MessageReader(message);
+        String localAppId = reader.readString(), inputIndex = reader.readString(),
+                taskId = reader.readString(), type = reader.readString(), shardKey = reader.readString();
+
+        List<TaskReview> reviews = new ArrayList<>();
+        while (reader.hasNext()) {
+            String reviewId = reader.readString();
+            int rating = reader.readInt();
+            String link = reader.readString();
+            if (type.equals(ANALYZE_SHARD_TASK)) {
+                reviews.add(TaskReview.inShard(reviewId, rating, link, reader.readLong(), reader.readInt()));
+            } else {
+                reviews.add(TaskReview.inline(reviewId, rating, link, reader.readString()));
+            }
+        }
+        return new WorkerTask(localAppId, inputIndex, taskId, type, shardKey, reviews);
+    }
+
+    // Only the task id, without copying the reviews
+    public static String readTaskId(String message) {
+        MessageReader reader = new MessageReader(message);
+        reader.skip();
+        reader.skip();
+        return reader.readString();
+    }
+
+    public String getLocalAppId() {
+        return localAppId;
+    }
+
+    public String getInputIndex() {
+        return inputIndex;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    public List<TaskReview> getReviews() {
+        return reviews;
+    }
+}
@@ -0,0 +1,35 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic count, updated without contention by many threads
+public class Counter implements Metric {
+    private final String help;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String help) {
+        this.help = help;
+    }
+
+    public void inc() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public String getHelp() {
+        return help;
+    }
+}
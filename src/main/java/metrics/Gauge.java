@@ -0,0 +1,28 @@
+package metrics;
+
+import java.util.function.DoubleSupplier;
+
+// Current value, read from its owner whenever the metrics are exported
+public class Gauge implements Metric {
+    private final String help;
+    private final DoubleSupplier value;
+
+    Gauge(String help, DoubleSupplier value) {
+        this.help = help;
+        this.value = value;
+    }
+
+    public double get() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public String getHelp() {
+        return help;
+    }
+}
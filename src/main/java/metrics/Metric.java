@@ -0,0 +1,9 @@
+package metrics;
+
+// A metric of the registry, exported to Prometheus and JMX
+public interface Metric {
+    // Prometheus type: counter, gauge or summary
+    String getType();
+
+    String getHelp();
+}
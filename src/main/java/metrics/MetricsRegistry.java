@@ -0,0 +1,64 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+// Metrics of this JVM by name. Labels are part of the name, family{label="value",...}, so each labeled
+// series is its own metric and the hot paths hold on to it instead of looking it up.
+public class MetricsRegistry {
+    private static final MetricsRegistry instance = new MetricsRegistry();
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    // family{label1="value1",label2="value2"}
+    public static String name(String family, String... labels) {
+        if (labels.length == 0) {
+            return family;
+        }
+        StringBuilder name = new StringBuilder(family).append('{');
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) {
+                name.append(',');
+            }
+            name.append(labels[i]).append("=\"").append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return name.append('}').toString();
+    }
+
+    public Counter counter(String name, String help) {
+        return register(name, new Counter(help), Counter.class);
+    }
+
+    // Replaces the gauge of the same name, its previous owner may be gone
+    public Gauge gauge(String name, String help, DoubleSupplier value) {
+        Gauge gauge = new Gauge(help, value);
+        metrics.put(name, gauge);
+        return gauge;
+    }
+
+    public Histogram histogram(String name, String help) {
+        return register(name, new Histogram(help), Histogram.class);
+    }
+
+    public void remove(String name) {
+        metrics.remove(name);
+    }
+
+    // Sorted by name, so the series of a family are next to each other
+    public Map<String, Metric> getMetrics() {
+        return new TreeMap<>(metrics);
+    }
+
+    private <T extends Metric> T register(String name, T metric, Class<T> type) {
+        Metric registered = metrics.computeIfAbsent(name, k -> metric);
+        if (!type.isInstance(registered)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + registered.getType());
+        }
+        return type.cast(registered);
+    }
+}
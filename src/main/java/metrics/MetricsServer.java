@@ -0,0 +1,61 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.ObjectName;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static aws.AWSConfig.*;
+
+// Exports the registry over JMX and as Prometheus text on http://<host>:METRICS_PORT/metrics.
+// Started once per JVM, the manager and the worker share it in local mode.
+public class MetricsServer {
+    private static final Logger logger = LogManager.getLogger(MetricsServer.class);
+    private static boolean started = false;
+
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(registry), new ObjectName(METRICS_JMX_NAME));
+        } catch (Exception e) {
+            logger.error("Error registering metrics MBean: " + e.getMessage());
+        }
+
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(METRICS_PORT), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = PrometheusFormat.render(registry.getMetrics()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream response = exchange.getResponseBody()) {
+                    response.write(body);
+                }
+            });
+            server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-server");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            // The dispatcher thread inherits the daemon flag of the thread starting it, so the endpoint
+            // never keeps the JVM alive after the manager or the worker finishes
+            Thread starter = new Thread(server::start);
+            starter.setDaemon(true);
+            starter.start();
+            starter.join();
+            logger.info("Serving metrics on port " + METRICS_PORT);
+        } catch (Exception e) {
+            // Metrics are optional, the instance keeps running without the endpoint
+            logger.error("Error starting metrics endpoint on port " + METRICS_PORT + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package metrics;
+
+import java.util.Map;
+
+// Prometheus text exposition format, histograms are exported as summaries in seconds
+public class PrometheusFormat {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+    public static String render(Map<String, Metric> metrics) {
+        StringBuilder text = new StringBuilder();
+        String currentFamily = null;
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            String name = entry.getKey();
+            Metric metric = entry.getValue();
+            int labelsStart = name.indexOf('{');
+            String family = labelsStart < 0 ? name : name.substring(0, labelsStart);
+            String labels = labelsStart < 0 ? "" : name.substring(labelsStart + 1, name.length() - 1);
+
+            if (!family.equals(currentFamily)) {
+                text.append("# HELP ").append(family).append(' ').append(metric.getHelp()).append('\n');
+                text.append("# TYPE ").append(family).append(' ').append(metric.getType()).append('\n');
+                currentFamily = family;
+            }
+
+            if (metric instanceof Counter) {
+                sample(text, family, labels, null, ((Counter) metric).get());
+            } else if (metric instanceof Gauge) {
+                sample(text, family, labels, null, ((Gauge) metric).get());
+            } else if (metric instanceof Histogram) {
+                Histogram histogram = (Histogram) metric;
+                for (double quantile : QUANTILES) {
+                    sample(text, family, labels, "quantile=\"" + quantile + "\"",
+                            histogram.getValueAtQuantile(quantile) / MICROS_PER_SECOND);
+                }
+                sample(text, family + "_sum", labels, null, histogram.getSum() / MICROS_PER_SECOND);
+                sample(text, family + "_count", labels, null, histogram.getCount());
+            }
+        }
+        return text.toString();
+    }
+
+    private static void sample(StringBuilder text, String family, String labels, String extraLabel, double value) {
+        text.append(family);
+        if (!labels.isEmpty() || extraLabel != null) {
+            text.append('{').append(labels);
+            if (extraLabel != null) {
+                text.append(labels.isEmpty() ? "" : ",").append(extraLabel);
+            }
+            text.append('}');
+        }
+        text.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+        text.append('\n');
+    }
+}
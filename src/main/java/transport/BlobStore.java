@@ -0,0 +1,40 @@
+package transport;
+
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+
+// Input files, review shards and summaries
+public interface BlobStore {
+    void createS3BucketIfNotExists(String bucketName);
+
+    void uploadFileToS3(String bucketName, String key, File inputFile);
+
+    void uploadContentToS3(String bucketName, String key, String content);
+
+    void uploadBytesToS3(String bucketName, String key, byte[] content);
+
+    void downloadObjectToFile(String bucketName, String key, File outputFile);
+
+    // The caller closes the stream
+    InputStream downloadObjectFromS3(String bucketName, String key);
+
+    long getObjectSize(String bucketName, String key);
+
+    // Parts of at least S3_PART_SIZE, except the last one
+    String createMultipartUpload(String bucketName, String key);
+
+    CompletedPart uploadPart(String bucketName, String key, String uploadId, int partNumber, byte[] part);
+
+    void completeMultipartUpload(String bucketName, String key, String uploadId, List<CompletedPart> parts);
+
+    void abortMultipartUpload(String bucketName, String key, String uploadId);
+
+    void deleteObjectFromS3(String bucketName, String key);
+
+    void emptyS3Bucket(String bucketName);
+
+    void deleteS3Bucket(String bucketName);
+}
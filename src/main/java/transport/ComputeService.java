@@ -0,0 +1,28 @@
+package transport;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Starts and stops the manager and the workers
+public interface ComputeService {
+    // Starts a manager unless one is already running
+    void runManager();
+
+    // May start fewer workers than count, completes with the ids of the started ones
+    CompletableFuture<List<String>> createWorkerInstancesAsync(int count);
+
+    List<String> getActiveWorkerIds();
+
+    // Workers that finished warming up, see READY_TAG
+    List<String> getReadyWorkerIds();
+
+    String getCurrentInstanceId();
+
+    void tagInstance(String instanceId, String key, String value);
+
+    void terminateEC2Instances(List<String> instanceIds);
+
+    void terminateAllWorkers();
+
+    void terminateManager();
+}
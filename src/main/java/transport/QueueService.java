@@ -0,0 +1,49 @@
+package transport;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.List;
+
+import static aws.AWSConfig.*;
+
+// Message queues between the local apps, the manager and the workers
+public interface QueueService {
+    String createQueueIfNotExist(String queueName);
+
+    // Throws QueueDoesNotExistException if there is no such queue
+    String getQueueUrl(String queueName);
+
+    // Messages waiting plus messages currently being processed
+    int getQueueDepth(String queueUrl);
+
+    default String getLocalAppQueueName(String localAppId) {
+        // managerToLocalQueue-<local_app_id>
+        return String.join(DEFAULT_DELIMITER, MANAGER_TO_LOCAL_QUEUE_NAME, localAppId);
+    }
+
+    void deleteQueue(String queueUrl);
+
+    void sendMessage(String queueUrl, String message);
+
+    // Returns the messages that could not be sent
+    List<String> sendMessageBatch(String queueUrl, List<String> messages);
+
+    default List<Message> receiveMessages(String queueUrl) {
+        return receiveMessages(queueUrl, MAX_BATCH_ENTRIES);
+    }
+
+    // Waits up to LONG_POLLING_TIME, received messages stay invisible to other receivers for VISIBILITY_TIMEOUT
+    List<Message> receiveMessages(String queueUrl, int maxNumberOfMessages);
+
+    void changeMessageVisibility(String queueUrl, Message message, int visibilityTimeout);
+
+    void deleteMessage(String queueUrl, Message message);
+
+    // May be deferred until flushAcknowledgements
+    void acknowledgeMessage(String queueUrl, Message message);
+
+    // May be deferred until flushAcknowledgements
+    void returnMessage(String queueUrl, Message message, int visibilityTimeout);
+
+    void flushAcknowledgements();
+}
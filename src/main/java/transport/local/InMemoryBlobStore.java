@@ -0,0 +1,141 @@
+package transport.local;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import transport.BlobStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static aws.AWSConfig.DEFAULT_DELIMITER;
+
+// Objects are kept in memory, uploaded files are read once and downloads to files are written to the local disk
+public class InMemoryBlobStore implements BlobStore {
+    private final Map<String, Map<String, byte[]>> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>(); // parts by upload id
+
+    @Override
+    public void createS3BucketIfNotExists(String bucketName) {
+        buckets.computeIfAbsent(bucketName, name -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void uploadFileToS3(String bucketName, String key, File inputFile) {
+        try {
+            uploadBytesToS3(bucketName, key, Files.readAllBytes(inputFile.toPath()));
+        } catch (IOException e) {
+            throw SdkClientException.create("Error reading " + inputFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void uploadContentToS3(String bucketName, String key, String content) {
+        uploadBytesToS3(bucketName, key, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void uploadBytesToS3(String bucketName, String key, byte[] content) {
+        getBucket(bucketName).put(key, content);
+    }
+
+    @Override
+    public void downloadObjectToFile(String bucketName, String key, File outputFile) {
+        try {
+            Files.write(outputFile.toPath(), getObject(bucketName, key));
+        } catch (IOException e) {
+            throw SdkClientException.create("Error writing " + outputFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream downloadObjectFromS3(String bucketName, String key) {
+        return new ByteArrayInputStream(getObject(bucketName, key));
+    }
+
+    @Override
+    public long getObjectSize(String bucketName, String key) {
+        return getObject(bucketName, key).length;
+    }
+
+    @Override
+    public String createMultipartUpload(String bucketName, String key) {
+        getBucket(bucketName);
+        String uploadId = UUID.randomUUID().toString();
+        multipartUploads.put(uploadId, new ConcurrentHashMap<>());
+        return uploadId;
+    }
+
+    @Override
+    public CompletedPart uploadPart(String bucketName, String key, String uploadId, int partNumber, byte[] part) {
+        getUpload(uploadId).put(partNumber, part);
+        return CompletedPart.builder().partNumber(partNumber).eTag(uploadId + DEFAULT_DELIMITER + partNumber).build();
+    }
+
+    @Override
+    public void completeMultipartUpload(String bucketName, String key, String uploadId, List<CompletedPart> parts) {
+        Map<Integer, byte[]> uploadedParts = getUpload(uploadId);
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        for (CompletedPart part : parts) {
+            byte[] content = uploadedParts.get(part.partNumber());
+            object.write(content, 0, content.length);
+        }
+        uploadBytesToS3(bucketName, key, object.toByteArray());
+        multipartUploads.remove(uploadId);
+    }
+
+    @Override
+    public void abortMultipartUpload(String bucketName, String key, String uploadId) {
+        multipartUploads.remove(uploadId);
+    }
+
+    @Override
+    public void deleteObjectFromS3(String bucketName, String key) {
+        getBucket(bucketName).remove(key);
+    }
+
+    @Override
+    public void emptyS3Bucket(String bucketName) {
+        getBucket(bucketName).clear();
+    }
+
+    @Override
+    public void deleteS3Bucket(String bucketName) {
+        buckets.remove(bucketName);
+    }
+
+    private Map<String, byte[]> getBucket(String bucketName) {
+        Map<String, byte[]> bucket = buckets.get(bucketName);
+        if (bucket == null) {
+            throw NoSuchBucketException.builder().message("Bucket " + bucketName + " does not exist").build();
+        }
+        return bucket;
+    }
+
+    private byte[] getObject(String bucketName, String key) {
+        byte[] object = getBucket(bucketName).get(key);
+        if (object == null) {
+            throw NoSuchKeyException.builder().message("Key " + key + " does not exist").build();
+        }
+        return object;
+    }
+
+    private Map<Integer, byte[]> getUpload(String uploadId) {
+        Map<Integer, byte[]> upload = multipartUploads.get(uploadId);
+        if (upload == null) {
+            throw NoSuchUploadException.builder().message("Upload " + uploadId + " does not exist").build();
+        }
+        return upload;
+    }
+}
@@ -0,0 +1,222 @@
+package transport.local;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
+import transport.QueueService;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static aws.AWSConfig.*;
+
+// Queues of this JVM with the SQS semantics the pipeline relies on: long polling, visibility timeouts and receipt handles
+public class InMemoryQueueService implements QueueService {
+    private static final String QUEUE_URL_PREFIX = "local://";
+    private final Map<String, LocalQueue> queues = new ConcurrentHashMap<>();
+    private final Logger logger = LogManager.getLogger(InMemoryQueueService.class);
+
+    @Override
+    public String createQueueIfNotExist(String queueName) {
+        String queueUrl = QUEUE_URL_PREFIX + queueName;
+        if (queues.putIfAbsent(queueUrl, new LocalQueue()) == null) {
+            logger.info("Queue " + queueName + " created");
+        }
+        return queueUrl;
+    }
+
+    @Override
+    public String getQueueUrl(String queueName) {
+        String queueUrl = QUEUE_URL_PREFIX + queueName;
+        getQueue(queueUrl);
+        return queueUrl;
+    }
+
+    @Override
+    public int getQueueDepth(String queueUrl) {
+        return getQueue(queueUrl).depth();
+    }
+
+    @Override
+    public void deleteQueue(String queueUrl) {
+        queues.remove(queueUrl);
+    }
+
+    @Override
+    public void sendMessage(String queueUrl, String message) {
+        getQueue(queueUrl).send(message);
+    }
+
+    @Override
+    public List<String> sendMessageBatch(String queueUrl, List<String> messages) {
+        LocalQueue queue = getQueue(queueUrl);
+        for (String message : messages) {
+            queue.send(message);
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Message> receiveMessages(String queueUrl, int maxNumberOfMessages) {
+        try {
+            return getQueue(queueUrl).receive(maxNumberOfMessages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void changeMessageVisibility(String queueUrl, Message message, int visibilityTimeout) {
+        getQueue(queueUrl).changeVisibility(message.receiptHandle(), visibilityTimeout);
+    }
+
+    @Override
+    public void deleteMessage(String queueUrl, Message message) {
+        getQueue(queueUrl).delete(message.receiptHandle());
+    }
+
+    // Nothing to batch without network calls
+    @Override
+    public void acknowledgeMessage(String queueUrl, Message message) {
+        deleteMessage(queueUrl, message);
+    }
+
+    @Override
+    public void returnMessage(String queueUrl, Message message, int visibilityTimeout) {
+        changeMessageVisibility(queueUrl, message, visibilityTimeout);
+    }
+
+    @Override
+    public void flushAcknowledgements() {
+    }
+
+    private LocalQueue getQueue(String queueUrl) {
+        LocalQueue queue = queues.get(queueUrl);
+        if (queue == null) {
+            throw QueueDoesNotExistException.builder().message("Queue " + queueUrl + " does not exist").build();
+        }
+        return queue;
+    }
+
+    private static class LocalQueue {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition messagesAvailable = lock.newCondition();
+        private final Deque<Message> visible = new ArrayDeque<>();
+        private final Map<String, InFlightMessage> inFlight = new HashMap<>(); // by receipt handle
+
+        private void send(String body) {
+            lock.lock();
+            try {
+                visible.addLast(Message.builder().messageId(UUID.randomUUID().toString()).body(body)
+                        .attributes(Collections.singletonMap(MessageSystemAttributeName.SENT_TIMESTAMP,
+                                String.valueOf(System.currentTimeMillis())))
+                        .build());
+                messagesAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Message> receive(int maxNumberOfMessages) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(LONG_POLLING_TIME);
+            lock.lock();
+            try {
+                while (true) {
+                    long nextExpiration = returnExpiredMessages();
+                    if (!visible.isEmpty()) {
+                        break;
+                    }
+                    long waitTime = Math.min(deadline, nextExpiration) - System.nanoTime();
+                    if (System.nanoTime() >= deadline) {
+                        return new ArrayList<>();
+                    }
+                    messagesAvailable.awaitNanos(Math.max(waitTime, 1));
+                }
+
+                List<Message> messages = new ArrayList<>();
+                long visibleAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(VISIBILITY_TIMEOUT);
+                while (messages.size() < maxNumberOfMessages && !visible.isEmpty()) {
+                    // A new receipt handle on every receive, like SQS
+                    Message message = visible.pollFirst().toBuilder().receiptHandle(UUID.randomUUID().toString()).build();
+                    inFlight.put(message.receiptHandle(), new InFlightMessage(message, visibleAt));
+                    messages.add(message);
+                }
+                return messages;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Makes messages whose visibility timeout passed visible again, returns when the next one expires
+        private long returnExpiredMessages() {
+            long now = System.nanoTime();
+            long nextExpiration = Long.MAX_VALUE;
+            Iterator<InFlightMessage> messages = inFlight.values().iterator();
+            while (messages.hasNext()) {
+                InFlightMessage message = messages.next();
+                if (message.visibleAt <= now) {
+                    visible.addLast(message.message);
+                    messages.remove();
+                } else {
+                    nextExpiration = Math.min(nextExpiration, message.visibleAt);
+                }
+            }
+            return nextExpiration;
+        }
+
+        private void changeVisibility(String receiptHandle, int visibilityTimeout) {
+            lock.lock();
+            try {
+                InFlightMessage message = inFlight.get(receiptHandle);
+                if (message != null) {
+                    message.visibleAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(visibilityTimeout);
+                    messagesAvailable.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void delete(String receiptHandle) {
+            lock.lock();
+            try {
+                inFlight.remove(receiptHandle);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int depth() {
+            lock.lock();
+            try {
+                return visible.size() + inFlight.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class InFlightMessage {
+        private final Message message;
+        private long visibleAt; // System.nanoTime, guarded by the queue lock
+
+        private InFlightMessage(Message message, long visibleAt) {
+            this.message = message;
+            this.visibleAt = visibleAt;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package transport.local;
+
+import manager.Manager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import transport.ComputeService;
+import worker.Worker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static aws.AWSConfig.*;
+
+// The manager and the workers run as threads of this JVM.
+// A single Worker serves every worker id, so the models are loaded once and its processing threads use all the cores.
+public class LocalComputeService implements ComputeService {
+    private static final String MANAGER_INSTANCE_ID = "local-manager";
+    private static final String WORKER_INSTANCE_ID = "local-worker";
+    private final InheritableThreadLocal<String> currentInstanceId = new InheritableThreadLocal<>();
+    private Thread manager; // guarded by this
+    private Thread worker; // guarded by this
+    private final Set<String> workerIds = new LinkedHashSet<>(); // guarded by this
+    private boolean workerReady = false; // guarded by this
+    private int launchedWorkers = 0; // guarded by this
+    private final Logger logger = LogManager.getLogger(LocalComputeService.class);
+
+    @Override
+    public synchronized void runManager() {
+        if (manager != null && manager.isAlive()) {
+            logger.info("Manager is running");
+            return;
+        }
+        logger.info("Starting manager thread");
+        manager = startInstance(MANAGER_INSTANCE_ID, () -> Manager.main(new String[0]));
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<String>> createWorkerInstancesAsync(int count) {
+        List<String> launchedIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            launchedIds.add(WORKER_INSTANCE_ID + DEFAULT_DELIMITER + launchedWorkers++);
+        }
+        workerIds.addAll(launchedIds);
+        if (worker == null || !worker.isAlive()) {
+            logger.info("Starting worker thread");
+            worker = startInstance(WORKER_INSTANCE_ID, () -> Worker.main(new String[0]));
+        }
+        return CompletableFuture.completedFuture(launchedIds);
+    }
+
+    private Thread startInstance(String instanceId, Runnable main) {
+        Thread instance = new Thread(() -> {
+            // Inherited by the threads the instance starts
+            currentInstanceId.set(instanceId);
+            main.run();
+        }, instanceId);
+        instance.start();
+        return instance;
+    }
+
+    @Override
+    public synchronized List<String> getActiveWorkerIds() {
+        return new ArrayList<>(workerIds);
+    }
+
+    @Override
+    public synchronized List<String> getReadyWorkerIds() {
+        return workerReady ? new ArrayList<>(workerIds) : new ArrayList<>();
+    }
+
+    @Override
+    public String getCurrentInstanceId() {
+        return currentInstanceId.get();
+    }
+
+    @Override
+    public synchronized void tagInstance(String instanceId, String key, String value) {
+        if (WORKER_INSTANCE_ID.equals(instanceId) && READY_TAG.equals(key)) {
+            workerReady = true;
+        }
+    }
+
+    @Override
+    public synchronized void terminateEC2Instances(List<String> instanceIds) {
+        workerIds.removeAll(instanceIds);
+        if (workerIds.isEmpty()) {
+            stopWorker();
+        }
+    }
+
+    @Override
+    public synchronized void terminateAllWorkers() {
+        workerIds.clear();
+        stopWorker();
+    }
+
+    // Manager.main returns right after terminating the manager
+    @Override
+    public void terminateManager() {
+    }
+
+    private void stopWorker() {
+        if (worker != null) {
+            logger.info("Stopping worker thread");
+            worker.interrupt();
+            worker = null;
+            workerReady = false;
+        }
+    }
+}
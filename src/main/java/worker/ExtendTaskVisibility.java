@@ -4,12 +4,13 @@ import aws.AWS;
 import static aws.AWSConfig.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import messages.WorkerTask;
 import software.amazon.awssdk.services.sqs.model.Message;
 
 public class ExtendTaskVisibility implements Runnable{
     private final AWS aws = AWS.getInstance();
     private final Message task;
-    private final String reviewId;
+    private final String taskId;
     private final String queueUrl;
     private int currVisibilityTimeout = VISIBILITY_TIMEOUT;
     private final Logger logger = LogManager.getLogger(ExtendTaskVisibility.class);
@@ -17,7 +18,7 @@ public class ExtendTaskVisibility implements Runnable{
     public ExtendTaskVisibility(Message task, String queueUrl) {
         this.task = task;
         this.queueUrl = queueUrl;
-        this.reviewId = task.body().split(MESSAGE_DELIMITER)[2];
+        this.taskId = WorkerTask.readTaskId(task.body());
     }
 
     @Override
@@ -27,7 +28,7 @@ public class ExtendTaskVisibility implements Runnable{
                 Thread.sleep(currVisibilityTimeout * 1000L / 2);
                 currVisibilityTimeout += VISIBILITY_TIMEOUT;
                 aws.sqs.changeMessageVisibility(queueUrl, task, currVisibilityTimeout);
-                logger.info("Extended visibility timeout for task " + reviewId + " to " + currVisibilityTimeout);
+                logger.info("Extended visibility timeout for task " + taskId + " to " + currVisibilityTimeout);
             } catch (InterruptedException e) {
                 break;
             }
@@ -0,0 +1,13 @@
+package worker;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+class ReceivedTask {
+    final Message message;
+    final Thread visibilityExtender;
+
+    ReceivedTask(Message message, Thread visibilityExtender) {
+        this.message = message;
+        this.visibilityExtender = visibilityExtender;
+    }
+}
@@ -0,0 +1,132 @@
+package worker;
+
+import aws.AWS;
+import static aws.AWSConfig.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+// Review shards downloaded once per worker and kept on local disk. A shard is pinned while it is downloaded or read,
+// only completed shards nobody uses are evicted, least recently used first.
+public class ShardCache {
+    private final AWS aws = AWS.getInstance();
+    private final File cacheDirectory;
+    // Access ordered, guarded by itself
+    private final Map<String, CachedShard> shards = new LinkedHashMap<>(SHARD_CACHE_SIZE, 0.75f, true);
+    private final Logger logger = LogManager.getLogger(ShardCache.class);
+
+    private static class CachedShard {
+        private final FutureTask<File> download;
+        private int users = 0; // guarded by shards
+
+        private CachedShard(FutureTask<File> download) {
+            this.download = download;
+        }
+    }
+
+    public ShardCache() {
+        try {
+            cacheDirectory = Files.createTempDirectory("shards").toFile();
+            cacheDirectory.deleteOnExit();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create shard cache directory: " + e.getMessage(), e);
+        }
+    }
+
+    public String getReviewText(String shardKey, long offset, int length) throws IOException {
+        CachedShard shard = pin(shardKey);
+        try {
+            byte[] reviewText = new byte[length];
+            try (RandomAccessFile shardFile = new RandomAccessFile(getFile(shardKey, shard), "r")) {
+                shardFile.seek(offset);
+                shardFile.readFully(reviewText);
+            }
+            return new String(reviewText, StandardCharsets.UTF_8);
+        } finally {
+            unpin(shard);
+        }
+    }
+
+    private CachedShard pin(String shardKey) {
+        synchronized (shards) {
+            CachedShard shard = shards.get(shardKey);
+            if (shard == null) {
+                shard = new CachedShard(new FutureTask<>(() -> downloadShard(shardKey)));
+                shards.put(shardKey, shard);
+            }
+            shard.users++;
+            evict();
+            return shard;
+        }
+    }
+
+    private void unpin(CachedShard shard) {
+        synchronized (shards) {
+            shard.users--;
+            evict();
+        }
+    }
+
+    private File getFile(String shardKey, CachedShard shard) throws IOException {
+        // Only the first thread downloads, the others asking for the same shard wait for it
+        shard.download.run();
+        try {
+            return shard.download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for shard " + shardKey, e);
+        } catch (ExecutionException e) {
+            synchronized (shards) {
+                shards.remove(shardKey, shard);
+            }
+            throw new IOException("Could not download shard " + shardKey + ": " + e.getCause().getMessage(), e);
+        }
+    }
+
+    // Guarded by shards. The cache may stay over SHARD_CACHE_SIZE while every shard is in use.
+    private void evict() {
+        Iterator<CachedShard> leastRecentlyUsed = shards.values().iterator();
+        while (shards.size() > SHARD_CACHE_SIZE && leastRecentlyUsed.hasNext()) {
+            CachedShard shard = leastRecentlyUsed.next();
+            if (shard.users == 0 && shard.download.isDone()) {
+                leastRecentlyUsed.remove();
+                deleteShard(shard);
+            }
+        }
+    }
+
+    private File downloadShard(String shardKey) {
+        File shardFile = new File(cacheDirectory, UUID.randomUUID().toString());
+        shardFile.deleteOnExit();
+        try {
+            aws.s3.downloadObjectToFile(BUCKET_NAME, shardKey, shardFile);
+        } catch (RuntimeException e) {
+            // No partial file is left behind
+            shardFile.delete();
+            throw e;
+        }
+        logger.info("Cached shard " + shardKey + " of " + shardFile.length() + " bytes");
+        return shardFile;
+    }
+
+    private void deleteShard(CachedShard shard) {
+        try {
+            File shardFile = shard.download.get();
+            if (!shardFile.delete()) {
+                logger.warn("Could not delete cached shard " + shardFile.getPath());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            // The download failed, there is no file to delete
+        }
+    }
+}
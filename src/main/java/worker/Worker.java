@@ -4,75 +4,255 @@ import aws.AWS;
 import static aws.AWSConfig.*;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
-import worker.analysis.SentimentAnalysisHandler;
-import worker.analysis.NamedEntityRecognitionHandler;
+import messages.ReviewResult;
+import messages.TaskReview;
+import messages.WorkerResponse;
+import messages.WorkerTask;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import metrics.MetricsServer;
+import worker.analysis.ReviewAnalysis;
+import worker.analysis.ReviewAnalysisHandler;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class Worker {
     private static final Logger logger = LogManager.getLogger(Worker.class);
     private static final AWS aws = AWS.getInstance();
-    private static final SentimentAnalysisHandler sentimentAnalysisHandler = new SentimentAnalysisHandler();
-    private static final NamedEntityRecognitionHandler namedEntityRecognitionHandler = new NamedEntityRecognitionHandler();
+    // Shared by all processing threads, CoreNLP annotators are thread-safe
+    private static ReviewAnalysisHandler reviewAnalysisHandler;
+    private static final ShardCache shardCache = new ShardCache();
+    private static WorkerEnv env;
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final Histogram queueWait = metrics.histogram("worker_queue_wait_seconds",
+            "Time from the manager sending a task to a processing thread starting it");
+    private static final Counter tasksFailed = metrics.counter("worker_tasks_failed_total",
+            "Tasks returned to the queue after an error");
+    private static final Counter busyTime = metrics.counter("worker_busy_microseconds_total",
+            "Time the processing threads spent on tasks");
+    private static final Counter overBudgetReviews = metrics.counter("worker_reviews_over_budget_total",
+            "Reviews given a neutral sentiment because their task used up its CPU budget");
+    private static final AtomicInteger busyThreads = new AtomicInteger();
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
 
     public static void main(String[] args) {
-        logger.info("Worker started");
-        handleTasksFromManager();
-        logger.info("Worker finished");
-    }
+        env = new WorkerEnv(args);
+        logger.info("Worker started with " + env.processingThreads + " processing threads, the " + env.nerProfile +
+                " ner profile and the " + env.sentimentProfile + " sentiment profile, max sentence length " +
+                env.maxSentenceLength + " tokens");
+        MetricsServer.start();
+
+        reviewAnalysisHandler = new ReviewAnalysisHandler(env.nerProfile, env.sentimentProfile, env.maxSentenceLength);
+        warmUp();
+        long startupTime = ManagementFactory.getRuntimeMXBean().getUptime();
+        logger.info("Worker ready after " + startupTime + " ms");
+        publishReadiness(startupTime);
+        registerWorkerMetrics();
 
-    private static void handleTasksFromManager() {
         String managerToWorkerQueueUrl = aws.sqs.getQueueUrl(MANAGER_TO_WORKER_QUEUE_NAME);
         String workerToManagerQueueUrl = aws.sqs.getQueueUrl(WORKER_TO_MANAGER_QUEUE_NAME);
 
+        for (int i = 0; i < env.processingThreads; i++) {
+            env.executor.execute(() -> handleTasks(managerToWorkerQueueUrl, workerToManagerQueueUrl));
+        }
+        receiveTasksFromManager(managerToWorkerQueueUrl);
+        env.executor.shutdownNow();
+        logger.info("Worker finished");
+    }
+
+    private static void warmUp() {
+        List<String> reviews = new ArrayList<>();
+        try (InputStream corpus = env.warmupCorpus != null ? new FileInputStream(env.warmupCorpus) :
+                Worker.class.getClassLoader().getResourceAsStream(WARMUP_CORPUS);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(corpus, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    reviews.add(line);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error reading warm-up corpus: " + e.getMessage());
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        reviewAnalysisHandler.warmUp(reviews, WARMUP_ROUNDS);
+        logger.info("Warmed up on " + reviews.size() + " reviews in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // The manager only counts tagged workers as ready capacity
+    private static void publishReadiness(long startupTime) {
+        try {
+            aws.ec2.tagInstance(aws.ec2.getCurrentInstanceId(), READY_TAG, String.valueOf(startupTime));
+        } catch (Exception e) {
+            logger.error("Error publishing readiness: " + e.getMessage());
+        }
+    }
+
+    private static void registerWorkerMetrics() {
+        long readyTime = System.nanoTime();
+        metrics.gauge("worker_processing_threads", "Processing threads of the worker", () -> env.processingThreads);
+        metrics.gauge("worker_busy_threads", "Processing threads working on a task", busyThreads::get);
+        metrics.gauge("worker_utilization_ratio", "Share of the processing threads time spent on tasks since the worker became ready",
+                () -> busyTime.get() / (env.processingThreads * (double) TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - readyTime + 1)));
+        metrics.gauge("worker_sentiment_cache_hits", "Sentences whose sentiment was found in the cache",
+                () -> reviewAnalysisHandler.getSentimentCache().getHits());
+        metrics.gauge("worker_sentiment_cache_misses", "Sentences whose sentiment was computed",
+                () -> reviewAnalysisHandler.getSentimentCache().getMisses());
+        metrics.gauge("worker_sentiment_sentences_skipped", "Sentences not parsed for being longer than the length cap",
+                reviewAnalysisHandler::getSkippedSentences);
+    }
+
+    private static void receiveTasksFromManager(String managerToWorkerQueueUrl) {
         while (true) {
             try {
-                logger.info("Polling tasks from " + MANAGER_TO_WORKER_QUEUE_NAME);
-                Message task = aws.sqs.receiveSingleMessage(managerToWorkerQueueUrl); // long polling
-                if (task != null) {
+                // Only receive as many tasks as the processing threads have room for
+                env.taskSlots.acquire();
+                int slots = 1;
+                while (slots < MAX_BATCH_ENTRIES && env.taskSlots.tryAcquire()) {
+                    slots++;
+                }
+
+                logger.info("Polling up to " + slots + " tasks from " + MANAGER_TO_WORKER_QUEUE_NAME);
+                List<Message> tasks;
+                try {
+                    tasks = aws.sqs.receiveMessages(managerToWorkerQueueUrl, slots); // long polling
+                } finally {
+                    env.taskSlots.release(slots);
+                }
+
+                for (Message task : tasks) {
+                    env.taskSlots.acquire();
                     Thread extendMessageVisibility = new Thread(new ExtendTaskVisibility(task, managerToWorkerQueueUrl));
                     extendMessageVisibility.start();
-                    String response = processTask(task.body());
-                    extendMessageVisibility.interrupt();
-                    if (response != null) {
-                        aws.sqs.sendMessage(workerToManagerQueueUrl, response);
-                        aws.sqs.deleteMessage(managerToWorkerQueueUrl, task);
-                    } else {
-                        // Put the task back in the queue
-                        aws.sqs.changeMessageVisibility(managerToWorkerQueueUrl, task, RETURN_TASK_TIME);
-                    }
+                    env.tasks.put(new ReceivedTask(task, extendMessageVisibility));
                 }
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage());
+                return;
             } catch (Exception e) {
                 logger.error(e.getMessage());
             }
         }
     }
 
+    private static void handleTasks(String managerToWorkerQueueUrl, String workerToManagerQueueUrl) {
+        while (true) {
+            ReceivedTask receivedTask;
+            try {
+                receivedTask = env.tasks.take();
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage());
+                return;
+            }
+
+            Message task = receivedTask.message;
+            recordQueueWait(task);
+            busyThreads.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                String response;
+                try {
+                    response = processTask(task.body());
+                } finally {
+                    busyTime.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    busyThreads.decrementAndGet();
+                }
+                receivedTask.visibilityExtender.interrupt();
+                if (response != null) {
+                    aws.sqs.sendMessage(workerToManagerQueueUrl, response);
+                    aws.sqs.acknowledgeMessage(managerToWorkerQueueUrl, task);
+                } else {
+                    // Put the task back in the queue
+                    tasksFailed.inc();
+                    aws.sqs.returnMessage(managerToWorkerQueueUrl, task, RETURN_TASK_TIME);
+                }
+            } catch (Exception e) {
+                receivedTask.visibilityExtender.interrupt();
+                logger.error(e.getMessage());
+            } finally {
+                env.taskSlots.release();
+            }
+        }
+    }
+
+    // SentTimestamp is set by the queue when the manager sends the task
+    private static void recordQueueWait(Message task) {
+        String sentTimestamp = task.attributes().get(MessageSystemAttributeName.SENT_TIMESTAMP);
+        if (sentTimestamp != null) {
+            queueWait.record(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - Long.parseLong(sentTimestamp)));
+        }
+    }
+
     private static String processTask(String taskBody) {
         try {
-            // <local_app_id>::<input_index>::<review_id>::<review_text>::<task_type>
-            String[] taskContent = taskBody.split(MESSAGE_DELIMITER);
-            String localAppId = taskContent[0], inputIndex = taskContent[1],
-                    reviewId = taskContent[2], reviewText = taskContent[3], taskType = taskContent[4];
-
-            logger.info("Received task: " + taskBody + " for localAppId " + localAppId + " for inputIndex " + inputIndex);
+            long start = System.nanoTime();
+            WorkerTask task = WorkerTask.decode(taskBody);
+            String localAppId = task.getLocalAppId(), inputIndex = task.getInputIndex(),
+                    taskId = task.getTaskId(), taskType = task.getType();
 
-            // <local_app_id>::<input_index>::<review_id>::<task_type>::<task_result>
-            String response = String.join(MESSAGE_DELIMITER, localAppId, inputIndex, reviewId, taskType, "");
+            logger.info("Received task " + taskId + " of type " + taskType + " for localAppId " + localAppId + " for inputIndex " + inputIndex);
 
-            if (taskType.equals(SENTIMENT_ANALYSIS_TASK)) {
-                String sentiment = String.valueOf(sentimentAnalysisHandler.findSentiment(reviewText));
-                response += sentiment; // <task_result>
-            }
-            if (taskType.equals(ENTITY_RECOGNITION_TASK)) {
-                String entities = String.join(", ", namedEntityRecognitionHandler.findEntities(reviewText));
-                response += entities; // <task_result>
+            List<ReviewResult> results = new ArrayList<>(task.getReviews().size());
+            long budgetEnd = cpuTime() + TimeUnit.SECONDS.toNanos(TASK_CPU_BUDGET);
+            if (taskType.equals(ANALYZE_TASK)) {
+                for (TaskReview review : task.getReviews()) {
+                    results.add(analyzeReview(review, review.getText(), cpuTime() < budgetEnd));
+                }
+            } else if (taskType.equals(ANALYZE_SHARD_TASK)) {
+                for (TaskReview review : task.getReviews()) {
+                    String reviewText = shardCache.getReviewText(task.getShardKey(), review.getOffset(), review.getLength());
+                    results.add(analyzeReview(review, reviewText, cpuTime() < budgetEnd));
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown task type " + taskType);
             }
 
-            return response;
+            metrics.histogram(MetricsRegistry.name("worker_task_seconds", "type", taskType),
+                    "Analysis time of a task by task type").recordSince(start);
+            metrics.counter(MetricsRegistry.name("worker_reviews_total", "type", taskType),
+                    "Reviews analyzed by task type").add(results.size());
+
+            logger.info("Sentiment cache hits " + reviewAnalysisHandler.getSentimentCache().getHits() +
+                    " misses " + reviewAnalysisHandler.getSentimentCache().getMisses());
+
+            return new WorkerResponse(localAppId, inputIndex, taskId, taskType, results).encode();
         } catch (Exception e) {
             logger.error(e.getMessage());
             return null;
         }
     }
+
+    // Once the task used up its CPU budget the remaining reviews only go through ner, so one slow task
+    // cannot hold a processing thread and its visibility extender indefinitely
+    private static ReviewResult analyzeReview(TaskReview review, String reviewText, boolean withinBudget) {
+        if (!withinBudget) {
+            overBudgetReviews.inc();
+        }
+        ReviewAnalysis analysis = reviewAnalysisHandler.analyze(reviewText, withinBudget);
+        return new ReviewResult(review.getId(), review.getRating(), review.getLink(),
+                analysis.getSentiment(), String.join(", ", analysis.getEntities()));
+    }
+
+    // CPU time of the processing thread, time spent waiting on a shard download does not count
+    private static long cpuTime() {
+        if (threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+            return threadMXBean.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
 }
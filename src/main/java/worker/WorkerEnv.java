@@ -0,0 +1,34 @@
+package worker;
+
+import static aws.AWSConfig.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class WorkerEnv {
+    public int processingThreads;
+    public BlockingQueue<ReceivedTask> tasks; // hand-off from the receiver to the processing threads
+    public Semaphore taskSlots; // received tasks not yet processed, bounded by the hand-off capacity
+    public ThreadPoolExecutor executor;
+    public String warmupCorpus; // file with one review per line, the bundled corpus if null
+    public String nerProfile;
+    public String sentimentProfile;
+    public int maxSentenceLength; // tokens, 0 parses every sentence
+
+    public WorkerEnv(String[] args) {
+        processingThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        warmupCorpus = args.length > 1 ? args[1] : null;
+        nerProfile = System.getProperty("nerProfile", NER_PROFILE);
+        sentimentProfile = System.getProperty("sentimentProfile", SENTIMENT_PROFILE);
+        maxSentenceLength = Integer.getInteger("maxSentenceLength", SENTIMENT_MAX_SENTENCE_LENGTH);
+
+        int capacity = processingThreads * WORKER_TASKS_PER_THREAD;
+        tasks = new ArrayBlockingQueue<>(capacity);
+        taskSlots = new Semaphore(capacity);
+
+        executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(processingThreads);
+    }
+
+}
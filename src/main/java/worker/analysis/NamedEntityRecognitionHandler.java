@@ -1,5 +1,6 @@
 package worker.analysis;
 
+import edu.stanford.nlp.ling.CoreAnnotations.CoarseNamedEntityTagAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.NamedEntityTagAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
@@ -10,28 +11,61 @@ import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
+import static aws.AWSConfig.*;
+
 public class NamedEntityRecognitionHandler {
+    private static final List<String> entities = Arrays.asList("PERSON", "ORGANIZATION", "LOCATION");
+    // The PERSON, ORGANIZATION and LOCATION tags of the default ner models all come from this one
+    private static final String LEAN_NER_MODEL = "edu/stanford/nlp/models/ner/english.all.3class.distsim.crf.ser.gz";
     private final StanfordCoreNLP nerPipeline;
-    private final List<String> entities = new ArrayList<>();
 
     public NamedEntityRecognitionHandler() {
+        this(NER_PROFILE);
+    }
+
+    public NamedEntityRecognitionHandler(String profile) {
+        nerPipeline = new StanfordCoreNLP(nerProperties(profile));
+    }
+
+    // The full profile runs the default ner stage: three CRF models, numeric classifiers, SUTime and the
+    // fine-grained and regexner rules. The lean profile only runs the CRF model that tags the entities we report.
+    public static Properties nerProperties(String profile) {
         Properties props = new Properties();
-        props.setProperty("annotators", "tokenize , ssplit , pos , lemma , ner");
-        entities.add("PERSON");
-        entities.add("ORGANIZATION");
-        entities.add("LOCATION");
-        nerPipeline = new StanfordCoreNLP(props);
+        if (profile.equals(NER_PROFILE_FULL)) {
+            props.setProperty("annotators", "tokenize, ssplit, pos, lemma, ner");
+        } else if (profile.equals(NER_PROFILE_LEAN)) {
+            // pos stays, the sentiment parser is constrained to the tags of the document
+            props.setProperty("annotators", "tokenize, ssplit, pos, ner");
+            props.setProperty("ner.model", LEAN_NER_MODEL);
+            props.setProperty("ner.useSUTime", "false");
+            props.setProperty("ner.applyNumericClassifiers", "false");
+            props.setProperty("ner.applyFineGrained", "false");
+            props.setProperty("ner.buildEntityMentions", "false");
+        } else {
+            throw new IllegalArgumentException("Unknown ner profile " + profile);
+        }
+        return props;
+    }
+
+    public static boolean isReported(String ne) {
+        return entities.contains(ne);
     }
 
     public List<String> findEntities(String review) {
-        List<String> entitiesFound = new ArrayList<>();
         // create an empty Annotation just with the given text
         Annotation document = new Annotation(review);
         // run all Annotators on this text
         nerPipeline.annotate(document);
+        return getEntities(document);
+    }
+
+    // Entities of an annotation that already went through the ner annotator
+    public static List<String> getEntities(Annotation document) {
+        List<String> entitiesFound = new ArrayList<>();
         // these are all the sentences in this document
         // a CoreMap is essentially a Map that uses class objects as keys and has values with
         // custom types
@@ -42,10 +76,13 @@ public class NamedEntityRecognitionHandler {
             for (CoreLabel token : sentence.get(TokensAnnotation.class)) {
                 // this is the text of the token
                 String word = token.get(TextAnnotation.class);
-                // this is the NER label of the token
-                String ne = token.get(NamedEntityTagAnnotation.class);
+                // this is the NER label of the token, before the fine-grained rules turn locations into CITY, COUNTRY...
+                String ne = token.get(CoarseNamedEntityTagAnnotation.class);
+                if (ne == null) {
+                    ne = token.get(NamedEntityTagAnnotation.class);
+                }
 
-                if (entities.contains(ne)) {
+                if (isReported(ne)) {
                     entitiesFound.add(word + ": " + ne);
                 }
             }
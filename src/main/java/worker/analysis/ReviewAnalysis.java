@@ -0,0 +1,21 @@
+package worker.analysis;
+
+import java.util.List;
+
+public class ReviewAnalysis {
+    private final int sentiment;
+    private final List<String> entities;
+
+    public ReviewAnalysis(int sentiment, List<String> entities) {
+        this.sentiment = sentiment;
+        this.entities = entities;
+    }
+
+    public int getSentiment() {
+        return sentiment;
+    }
+
+    public List<String> getEntities() {
+        return entities;
+    }
+}
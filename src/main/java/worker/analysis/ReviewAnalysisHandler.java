@@ -0,0 +1,73 @@
+package worker.analysis;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static aws.AWSConfig.*;
+
+public class ReviewAnalysisHandler {
+    private final StanfordCoreNLP nerPipeline;
+    private final SentimentAnalysisHandler sentimentAnalysisHandler;
+
+    public ReviewAnalysisHandler() {
+        this(NER_PROFILE);
+    }
+
+    public ReviewAnalysisHandler(String nerProfile) {
+        this(nerProfile, SENTIMENT_PROFILE);
+    }
+
+    public ReviewAnalysisHandler(String nerProfile, String sentimentProfile) {
+        this(nerProfile, sentimentProfile, SENTIMENT_MAX_SENTENCE_LENGTH);
+    }
+
+    public ReviewAnalysisHandler(String nerProfile, String sentimentProfile, int maxSentenceLength) {
+        // The parser and sentiment models load on another thread while the ner models load on this one
+        CompletableFuture<SentimentAnalysisHandler> sentimentHandler = CompletableFuture.supplyAsync(() ->
+                new SentimentAnalysisHandler(sentimentProfile, SENTIMENT_LONGEST_SENTENCE_ONLY, maxSentenceLength));
+
+        nerPipeline = new StanfordCoreNLP(NamedEntityRecognitionHandler.nerProperties(nerProfile));
+
+        sentimentAnalysisHandler = sentimentHandler.join();
+    }
+
+    // The review is tokenized and split once, then both the ner and sentiment stages annotate the same document
+    public ReviewAnalysis analyze(String review) {
+        return analyze(review, true);
+    }
+
+    // Without findSentiment the review is not parsed and gets a neutral sentiment
+    public ReviewAnalysis analyze(String review, boolean findSentiment) {
+        if (review == null || review.length() == 0) {
+            return new ReviewAnalysis(0, new ArrayList<>());
+        }
+        Annotation document = new Annotation(review);
+        nerPipeline.annotate(document);
+        return new ReviewAnalysis(
+                findSentiment ? sentimentAnalysisHandler.findSentiment(document) : NEUTRAL_SENTIMENT,
+                NamedEntityRecognitionHandler.getEntities(document));
+    }
+
+    // Runs the reviews through both pipelines so the JIT compiles the hot paths before real tasks arrive
+    public void warmUp(List<String> reviews, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            for (String review : reviews) {
+                analyze(review);
+            }
+            // Every round parses again instead of hitting the cache, and the warm-up sentences are not kept
+            getSentimentCache().clear();
+        }
+    }
+
+    public SentimentCache getSentimentCache() {
+        return sentimentAnalysisHandler.getSentimentCache();
+    }
+
+    public long getSkippedSentences() {
+        return sentimentAnalysisHandler.getSkippedSentences();
+    }
+}
@@ -1,39 +1,179 @@
 package worker.analysis;
 
+import edu.stanford.nlp.ling.CoreAnnotations.PartOfSpeechAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
+import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
 import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
 import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.ArrayCoreMap;
 import edu.stanford.nlp.util.CoreMap;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+import static aws.AWSConfig.*;
 
 public class SentimentAnalysisHandler {
+    // The shift-reduce parser does not tag, the sentences it gets are already tagged
+    private static final String SHIFT_REDUCE_MODEL = "edu/stanford/nlp/models/srparser/englishSR.ser.gz";
+    private final StanfordCoreNLP splitPipeline;
     private final StanfordCoreNLP sentimentPipeline;
+    private final SentimentCache sentimentCache = new SentimentCache(SENTIMENT_CACHE_SIZE);
+    private final boolean longestSentenceOnly;
+    private final int maxSentenceLength; // tokens
+    private final boolean parseWithTags; // the shift-reduce parser needs them, the pcfg parser tags by itself
+    private final LongAdder skippedSentences = new LongAdder();
 
     public SentimentAnalysisHandler() {
+        this(SENTIMENT_PROFILE, SENTIMENT_LONGEST_SENTENCE_ONLY);
+    }
+
+    public SentimentAnalysisHandler(boolean longestSentenceOnly) {
+        this(SENTIMENT_PROFILE, longestSentenceOnly);
+    }
+
+    public SentimentAnalysisHandler(String profile) {
+        this(profile, SENTIMENT_LONGEST_SENTENCE_ONLY);
+    }
+
+    public SentimentAnalysisHandler(String profile, boolean longestSentenceOnly) {
+        this(profile, longestSentenceOnly, SENTIMENT_MAX_SENTENCE_LENGTH);
+    }
+
+    // longestSentenceOnly: only the sentence that decides the sentiment is parsed, with the same result.
+    // maxSentenceLength: longer sentences are not parsed, 0 parses every sentence.
+    public SentimentAnalysisHandler(String profile, boolean longestSentenceOnly, int maxSentenceLength) {
+        this.longestSentenceOnly = longestSentenceOnly;
+        // Parsing is superlinear in the sentence length, one run-on sentence could hold a thread for minutes
+        this.maxSentenceLength = maxSentenceLength > 0 ? maxSentenceLength : Integer.MAX_VALUE;
+        parseWithTags = profile.equals(SENTIMENT_PROFILE_SHIFT_REDUCE);
+
+        Properties splitProps = new Properties();
+        splitProps.setProperty("annotators", profile.equals(SENTIMENT_PROFILE_SHIFT_REDUCE) ? "tokenize, ssplit, pos" : "tokenize, ssplit");
+        splitPipeline = new StanfordCoreNLP(splitProps);
+
         Properties props = new Properties();
-        props.setProperty("annotators", "tokenize, ssplit, parse, sentiment");
+        props.setProperty("annotators", "parse, sentiment");
+        // Runs on sentences that were already tokenized and split
+        props.setProperty("enforceRequirements", "false");
+        if (profile.equals(SENTIMENT_PROFILE_SHIFT_REDUCE)) {
+            props.setProperty("parse.model", SHIFT_REDUCE_MODEL);
+            // The sentiment model runs on binarized trees
+            props.setProperty("parse.binaryTrees", "true");
+        } else if (!profile.equals(SENTIMENT_PROFILE_PCFG)) {
+            throw new IllegalArgumentException("Unknown sentiment profile " + profile);
+        }
         sentimentPipeline = new StanfordCoreNLP(props);
     }
 
     public int findSentiment(String tweet) {
-        int mainSentiment = 0;
-        if (tweet != null && tweet.length() > 0) {
-            int longest = 0;
-            Annotation annotation = sentimentPipeline.process(tweet);
-            for (CoreMap sentence : annotation.get(SentencesAnnotation.class)) {
+        if (tweet == null || tweet.length() == 0) {
+            return 0;
+        }
+        return findSentiment(splitPipeline.process(tweet));
+    }
+
+    // Sentiment of the longest sentence of an already split annotation. Sentences longer than maxSentenceLength
+    // tokens are not parsed, the longest of the others decides instead, and a review with only such sentences
+    // is neutral.
+    public int findSentiment(Annotation annotation) {
+        List<CoreMap> sentences = new ArrayList<>();
+        boolean skipped = false;
+        for (CoreMap sentence : annotation.get(SentencesAnnotation.class)) {
+            if (sentence.get(TokensAnnotation.class).size() <= maxSentenceLength) {
+                sentences.add(sentence);
+            } else {
+                skippedSentences.increment();
+                skipped = true;
+            }
+        }
+        int longest = findLongestSentence(sentences);
+        if (longest < 0) {
+            return skipped ? NEUTRAL_SENTIMENT : 0;
+        }
+        if (longestSentenceOnly) {
+            return findSentiments(annotation, Collections.singletonList(sentences.get(longest)))[0];
+        }
+        return findSentiments(annotation, sentences)[longest];
+    }
+
+    // Index of the first of the longest sentences, -1 if there are only empty sentences
+    private static int findLongestSentence(List<CoreMap> sentences) {
+        int longestIndex = -1;
+        int longest = 0;
+        for (int i = 0; i < sentences.size(); i++) {
+            int length = sentences.get(i).toString().length();
+            if (length > longest) {
+                longestIndex = i;
+                longest = length;
+            }
+        }
+        return longestIndex;
+    }
+
+    // Only sentences missing from the cache are parsed
+    private int[] findSentiments(Annotation annotation, List<CoreMap> sentences) {
+        int[] sentiments = new int[sentences.size()];
+        List<CoreMap> uncachedSentences = new ArrayList<>();
+        List<Integer> uncachedIndexes = new ArrayList<>();
+
+        for (int i = 0; i < sentences.size(); i++) {
+            Integer sentiment = sentimentCache.get(SentimentCache.normalize(sentences.get(i).toString()));
+            if (sentiment != null) {
+                sentiments[i] = sentiment;
+            } else {
+                uncachedSentences.add(forParsing(sentences.get(i)));
+                uncachedIndexes.add(i);
+            }
+        }
+
+        if (!uncachedSentences.isEmpty()) {
+            Annotation uncachedAnnotation = new Annotation(annotation.get(TextAnnotation.class));
+            uncachedAnnotation.set(SentencesAnnotation.class, uncachedSentences);
+            sentimentPipeline.annotate(uncachedAnnotation);
+
+            for (int i = 0; i < uncachedSentences.size(); i++) {
+                CoreMap sentence = uncachedSentences.get(i);
                 Tree tree = sentence.get(SentimentCoreAnnotations.SentimentAnnotatedTree.class);
                 int sentiment = RNNCoreAnnotations.getPredictedClass(tree);
-                String partText = sentence.toString();
-                if (partText.length() > longest) {
-                    mainSentiment = sentiment;
-                    longest = partText.length();
-                }
+                sentiments[uncachedIndexes.get(i)] = sentiment;
+                sentimentCache.put(SentimentCache.normalize(sentences.get(uncachedIndexes.get(i)).toString()), sentiment);
             }
         }
-        return mainSentiment;
+        return sentiments;
+    }
+
+    // The pcfg parser keeps the tags already on the tokens, which the pos annotator of the ner pipeline sets, and
+    // that changes some sentiments. It gets copies of the tokens without them, as when it ran on its own pipeline.
+    private CoreMap forParsing(CoreMap sentence) {
+        if (parseWithTags) {
+            return sentence;
+        }
+        List<CoreLabel> tokens = new ArrayList<>();
+        for (CoreLabel token : sentence.get(TokensAnnotation.class)) {
+            CoreLabel untagged = new CoreLabel(token);
+            untagged.remove(PartOfSpeechAnnotation.class);
+            tokens.add(untagged);
+        }
+        CoreMap untaggedSentence = new ArrayCoreMap(sentence);
+        untaggedSentence.set(TokensAnnotation.class, tokens);
+        return untaggedSentence;
+    }
+
+    public SentimentCache getSentimentCache() {
+        return sentimentCache;
+    }
+
+    // Sentences left out for being longer than maxSentenceLength
+    public long getSkippedSentences() {
+        return skippedSentences.sum();
     }
 }
@@ -0,0 +1,76 @@
+package worker.analysis;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LRU cache of sentence sentiments, bounded by the total length of the cached sentences
+public class SentimentCache {
+    private final long maxSize; // characters
+    private long size = 0;
+    private final LinkedHashMap<String, CachedSentiment> sentiments = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SentimentCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static String normalize(String sentence) {
+        return sentence.trim().replaceAll("\\s+", " ");
+    }
+
+    // Predicted class of the normalized sentence, or null if it is not cached
+    public Integer get(String sentence) {
+        CachedSentiment cached;
+        synchronized (this) {
+            cached = sentiments.get(sentence);
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.sentiment;
+    }
+
+    public synchronized void put(String sentence, int sentiment) {
+        if (sentence.length() > maxSize) {
+            return;
+        }
+        CachedSentiment previous = sentiments.put(sentence, new CachedSentiment(sentiment, sentence.length()));
+        size += sentence.length() - (previous == null ? 0 : previous.length);
+
+        Iterator<Map.Entry<String, CachedSentiment>> eldest = sentiments.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            size -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        sentiments.clear();
+        size = 0;
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static class CachedSentiment {
+        private final int sentiment;
+        private final int length;
+
+        private CachedSentiment(int sentiment, int length) {
+            this.sentiment = sentiment;
+            this.length = length;
+        }
+    }
+}